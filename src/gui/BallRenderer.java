@@ -0,0 +1,374 @@
+package gui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A BallRenderer draws many Balls into a reused BufferedImage. Instead of
+ * drawing every Ball as an oval, a BallRenderer rasterizes a single Ball
+ * once into a sprite and copies the sprite into the int-raster of the image
+ * for every visible Ball. Balls that are not inside the image are skipped.
+ * When a Ball is smaller than a pixel, the Balls are drawn as a
+ * density-heatmap instead, where the darkness of a pixel depends on the
+ * number of Balls inside it.
+ * <p>
+ * The image is split into horizontal stripes, which are rendered in
+ * parallel. Every stripe only writes its own rows, so the stripes do not
+ * have to be synchronized. Before the stripes are rendered, the visible
+ * Balls are sorted into a bucket per stripe with a counting sort, so every
+ * Ball is culled only once and every stripe only walks the Balls that
+ * overlap it. The sort keeps the order of the Balls, so overlapping Balls
+ * are blended in the same order in every stripe.
+ *
+ * @see Field
+ */
+public class BallRenderer {
+
+    /**
+     * The number of stripes the image is split into.
+     */
+    private final int stripes;
+
+    /**
+     * The reused image, or null until the first rendering.
+     */
+    private BufferedImage image;
+
+    /**
+     * The int-raster of the image.
+     */
+    private int[] pixels;
+
+    /**
+     * The number of Balls per pixel, used for the density-heatmap.
+     */
+    private int[] density;
+
+    /**
+     * The scaled radius the sprite has been rasterized for.
+     */
+    private double spriteRadius = -1;
+
+    /**
+     * The length and height of the sprite.
+     */
+    private int spriteSize;
+
+    /**
+     * The alpha-values of the sprite, row by row.
+     */
+    private int[] spriteAlpha;
+
+    /**
+     * The first and the last stripe every Ball overlaps, or -1 for Balls
+     * outside the image.
+     */
+    private int[] ballStripes = new int[0];
+
+    /**
+     * The indices of the Balls per stripe. The Balls of stripe i are stored
+     * from stripeStart[i] to stripeStart[i + 1]. A Ball that overlaps
+     * several stripes is stored in each of them.
+     */
+    private int[] stripeBalls = new int[0];
+
+    /**
+     * The start of every stripe in stripeBalls.
+     */
+    private final int[] stripeStart;
+
+    /**
+     * Creates a new BallRenderer, which renders with one stripe per
+     * available processor.
+     */
+    public BallRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new BallRenderer, which renders with the given number of
+     * stripes.
+     *
+     * @param stripes the number of stripes rendered in parallel
+     */
+    public BallRenderer(int stripes) {
+        this.stripes = Math.max(1, stripes);
+        stripeStart = new int[this.stripes + 1];
+    }
+
+    /**
+     * Renders the given Balls into the reused image. The Ball-coordinates
+     * are transformed into image-coordinates by subtracting the origin and
+     * multiplying with the scale.
+     *
+     * @param ballsX  the X-positions of the Balls
+     * @param ballsY  the Y-positions of the Balls
+     * @param count   the number of Balls
+     * @param radius  the radius of every Ball
+     * @param originX the X-coordinate shown at the left edge of the image
+     * @param originY the Y-coordinate shown at the top edge of the image
+     * @param scale   the number of pixels per unit
+     * @param width   the width of the image
+     * @param height  the height of the image
+     * @return the rendered image, which is reused by the next rendering
+     */
+    public BufferedImage render(double[] ballsX, double[] ballsY, int count,
+                                int radius, double originX, double originY,
+                                double scale, int width, int height) {
+        prepareImage(Math.max(1, width), Math.max(1, height));
+        int imageWidth = image.getWidth();
+        int imageHeight = image.getHeight();
+        double scaledRadius = radius * scale;
+        boolean heatmap = 2 * scaledRadius < 1;
+        if (heatmap && density == null) {
+            density = new int[pixels.length];
+        } else if (!heatmap) {
+            prepareSprite(scaledRadius);
+        }
+        int stripeHeight = (imageHeight + stripes - 1) / stripes;
+        bucketBalls(ballsX, ballsY, count, originX, originY, scale, heatmap,
+                stripeHeight, imageWidth, imageHeight);
+
+        IntStream.range(0, stripes).parallel().forEach(stripe -> {
+            int top = stripe * stripeHeight;
+            int bottom = Math.min(imageHeight, top + stripeHeight);
+            if (top >= bottom) {
+                return;
+            }
+            Arrays.fill(pixels, top * imageWidth, bottom * imageWidth, 0);
+            if (heatmap) {
+                renderDensity(ballsX, ballsY, stripe, scaledRadius, originX,
+                        originY, scale, top, bottom, imageWidth);
+            } else {
+                renderSprites(ballsX, ballsY, stripe, originX, originY,
+                        scale, top, bottom, imageWidth);
+            }
+        });
+        return image;
+    }
+
+    /**
+     * Sorts the visible Balls into the buckets of the stripes they overlap.
+     * A Ball drawn as sprite overlaps the rows of the sprite, a Ball counted
+     * in the density-heatmap only the row of its center.
+     *
+     * @param ballsX       the X-positions of the Balls
+     * @param ballsY       the Y-positions of the Balls
+     * @param count        the number of Balls
+     * @param originX      the X-coordinate shown at the left edge
+     * @param originY      the Y-coordinate shown at the top edge
+     * @param scale        the number of pixels per unit
+     * @param heatmap      if the Balls are drawn as density-heatmap
+     * @param stripeHeight the number of rows of a stripe
+     * @param imageWidth   the width of the image
+     * @param imageHeight  the height of the image
+     */
+    private void bucketBalls(double[] ballsX, double[] ballsY, int count,
+                             double originX, double originY, double scale,
+                             boolean heatmap, int stripeHeight,
+                             int imageWidth, int imageHeight) {
+        if (ballStripes.length < 2 * count) {
+            ballStripes = new int[2 * count];
+        }
+        Arrays.fill(stripeStart, 0);
+        for (int i = 0; i < count; i++) {
+            int firstRow;
+            int lastRow;
+            int firstColumn;
+            int lastColumn;
+            if (heatmap) {
+                firstRow = (int) Math.floor((ballsY[i] - originY) * scale);
+                firstColumn = (int) Math.floor((ballsX[i] - originX)
+                        * scale);
+                lastRow = firstRow + 1;
+                lastColumn = firstColumn + 1;
+            } else {
+                firstRow = (int) Math.floor((ballsY[i] - originY) * scale
+                        - spriteRadius);
+                firstColumn = (int) Math.floor((ballsX[i] - originX) * scale
+                        - spriteRadius);
+                lastRow = firstRow + spriteSize;
+                lastColumn = firstColumn + spriteSize;
+            }
+            if (firstRow >= imageHeight || lastRow <= 0
+                    || firstColumn >= imageWidth || lastColumn <= 0) {
+                ballStripes[2 * i] = -1;
+                continue;
+            }
+            int firstStripe = Math.max(0, firstRow) / stripeHeight;
+            int lastStripe = (Math.min(imageHeight, lastRow) - 1)
+                    / stripeHeight;
+            ballStripes[2 * i] = firstStripe;
+            ballStripes[2 * i + 1] = lastStripe;
+            for (int stripe = firstStripe; stripe <= lastStripe; stripe++) {
+                stripeStart[stripe + 1]++;
+            }
+        }
+
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            stripeStart[stripe + 1] += stripeStart[stripe];
+        }
+        if (stripeBalls.length < stripeStart[stripes]) {
+            stripeBalls = new int[stripeStart[stripes]];
+        }
+        for (int i = 0; i < count; i++) {
+            int firstStripe = ballStripes[2 * i];
+            if (firstStripe < 0) {
+                continue;
+            }
+            for (int stripe = firstStripe; stripe <= ballStripes[2 * i + 1];
+                 stripe++) {
+                stripeBalls[stripeStart[stripe]++] = i;
+            }
+        }
+        for (int stripe = stripes; stripe > 0; stripe--) {
+            stripeStart[stripe] = stripeStart[stripe - 1];
+        }
+        stripeStart[0] = 0;
+    }
+
+    /**
+     * Creates a new image if there is none or its size has changed.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     */
+    private void prepareImage(int width, int height) {
+        if (image == null || image.getWidth() != width
+                || image.getHeight() != height) {
+            image = new BufferedImage(width, height,
+                    BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer())
+                    .getData();
+            density = null;
+        }
+    }
+
+    /**
+     * Rasterizes the sprite of a Ball with the given scaled radius, unless
+     * it has already been rasterized for this radius.
+     *
+     * @param scaledRadius the radius of a Ball in pixels
+     */
+    private void prepareSprite(double scaledRadius) {
+        if (scaledRadius == spriteRadius) {
+            return;
+        }
+        int size = (int) Math.ceil(2 * scaledRadius);
+        BufferedImage sprite = new BufferedImage(size, size,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = sprite.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.BLACK);
+        graphics.fill(new Ellipse2D.Double(0, 0, 2 * scaledRadius,
+                2 * scaledRadius));
+        graphics.dispose();
+
+        int[] alpha = new int[size * size];
+        for (int i = 0; i < alpha.length; i++) {
+            alpha[i] = sprite.getRGB(i % size, i / size) >>> 24;
+        }
+        spriteAlpha = alpha;
+        spriteSize = size;
+        spriteRadius = scaledRadius;
+    }
+
+    /**
+     * Copies the sprite of every Ball in the bucket of the given stripe into
+     * the rows of the stripe. Overlapping Balls are blended.
+     *
+     * @param ballsX     the X-positions of the Balls
+     * @param ballsY     the Y-positions of the Balls
+     * @param stripe     the stripe
+     * @param originX    the X-coordinate shown at the left edge
+     * @param originY    the Y-coordinate shown at the top edge
+     * @param scale      the number of pixels per unit
+     * @param top        the first row of the stripe
+     * @param bottom     the row after the last row of the stripe
+     * @param imageWidth the width of the image
+     */
+    private void renderSprites(double[] ballsX, double[] ballsY, int stripe,
+                               double originX, double originY, double scale,
+                               int top, int bottom, int imageWidth) {
+        int size = spriteSize;
+        int[] alpha = spriteAlpha;
+        for (int k = stripeStart[stripe]; k < stripeStart[stripe + 1]; k++) {
+            int i = stripeBalls[k];
+            int left = (int) Math.floor((ballsX[i] - originX) * scale
+                    - spriteRadius);
+            int upper = (int) Math.floor((ballsY[i] - originY) * scale
+                    - spriteRadius);
+            if (upper >= bottom || upper + size <= top || left >= imageWidth
+                    || left + size <= 0) {
+                continue;
+            }
+            int firstRow = Math.max(top, upper);
+            int lastRow = Math.min(bottom, upper + size);
+            int firstColumn = Math.max(0, left);
+            int lastColumn = Math.min(imageWidth, left + size);
+            for (int row = firstRow; row < lastRow; row++) {
+                int spriteOffset = (row - upper) * size - left;
+                int pixelOffset = row * imageWidth;
+                for (int column = firstColumn; column < lastColumn;
+                     column++) {
+                    int sourceAlpha = alpha[spriteOffset + column];
+                    if (sourceAlpha != 0) {
+                        int targetAlpha = pixels[pixelOffset + column] >>> 24;
+                        int blended = sourceAlpha + targetAlpha
+                                * (255 - sourceAlpha) / 255;
+                        pixels[pixelOffset + column] = blended << 24;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the Balls in the bucket of the given stripe per pixel and turns
+     * the counts into a density-heatmap. A pixel gets as dark as the share of
+     * it that is covered by Balls.
+     *
+     * @param ballsX       the X-positions of the Balls
+     * @param ballsY       the Y-positions of the Balls
+     * @param stripe       the stripe
+     * @param scaledRadius the radius of a Ball in pixels
+     * @param originX      the X-coordinate shown at the left edge
+     * @param originY      the Y-coordinate shown at the top edge
+     * @param scale        the number of pixels per unit
+     * @param top          the first row of the stripe
+     * @param bottom       the row after the last row of the stripe
+     * @param imageWidth   the width of the image
+     */
+    private void renderDensity(double[] ballsX, double[] ballsY, int stripe,
+                               double scaledRadius, double originX,
+                               double originY, double scale, int top,
+                               int bottom, int imageWidth) {
+        int[] counts = density;
+        Arrays.fill(counts, top * imageWidth, bottom * imageWidth, 0);
+        for (int k = stripeStart[stripe]; k < stripeStart[stripe + 1]; k++) {
+            int i = stripeBalls[k];
+            int row = (int) Math.floor((ballsY[i] - originY) * scale);
+            int column = (int) Math.floor((ballsX[i] - originX) * scale);
+            if (row >= top && row < bottom && column >= 0
+                    && column < imageWidth) {
+                counts[row * imageWidth + column]++;
+            }
+        }
+
+        double coverage = Math.max(Math.PI * scaledRadius * scaledRadius,
+                1.0 / 255);
+        for (int i = top * imageWidth; i < bottom * imageWidth; i++) {
+            if (counts[i] != 0) {
+                int alpha = (int) Math.min(255, counts[i] * coverage * 255);
+                pixels[i] = Math.max(alpha, 1) << 24;
+            }
+        }
+    }
+}
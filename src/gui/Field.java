@@ -1,19 +1,37 @@
 package gui;
 
-import simulation.Simulation;
+import simulation.BallStateObserver;
 import simulation.MovementSimulator;
+import simulation.Simulation;
+import simulation.SlowConsumerPolicy;
+import simulation.SpatialGrid;
+import simulation.StateConsumer;
+import simulation.StateFrame;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
 
 /**
  * A Field is a JPanel that draws the Ball on itself. The JPanel has got
- * the length and height of the Box. The walls of the Box are the borders
- * of the Field. A Field observes a Ball and draws a ball after a given
- * delay-time, except the Ball is not moving. It only starts to draw it again
- * after a Field gets notified again.
+ * the length and height of the Box, unless the Box is larger than the
+ * screen. The Field shows the Box through a Viewport, which can be zoomed
+ * with the mouse-wheel and panned by dragging with the mouse, so Boxes larger
+ * than the screen can be viewed as well. Only the Balls inside the visible
+ * part of the Box are drawn. A Field observes a Ball and draws a ball after
+ * a given delay-time, except the Ball is not moving. It only starts to draw
+ * it again after a Field gets notified again. The frame of a resting Ball is
+ * rendered once and cached, so repaints of the idle Field only copy the
+ * cached image.
+ * The repaint-Timer and the movement of the Ball are started lazily after
+ * the first frame has been painted, so the window appears as early as
+ * possible. The Field fires the bound property {@code "firstFrame"} at that
+ * moment.
  */
 public class Field extends JPanel implements BallStateObserver {
 
@@ -28,6 +46,67 @@ public class Field extends JPanel implements BallStateObserver {
      */
     private Simulation simulation;
 
+    /**
+     * The consumer, which reads the latest Ball-state of the Simulation.
+     */
+    private final StateConsumer stateConsumer;
+
+    /**
+     * The reused copy of the latest Ball-state.
+     */
+    private final StateFrame stateFrame;
+
+    /**
+     * The BallRenderer, which draws the Balls into an image.
+     */
+    private final BallRenderer renderer;
+
+    /**
+     * The X-positions of the drawn Balls.
+     */
+    private final double[] ballsX;
+
+    /**
+     * The Y-positions of the drawn Balls.
+     */
+    private final double[] ballsY;
+
+    /**
+     * The visible part of the Box.
+     */
+    private final Viewport viewport;
+
+    /**
+     * The SpatialGrid, which finds the Balls inside the Viewport.
+     */
+    private final SpatialGrid grid;
+
+    /**
+     * The indices of the Balls inside the Viewport.
+     */
+    private final int[] visibleBalls;
+
+    /**
+     * The X-positions of the Balls inside the Viewport.
+     */
+    private final double[] visibleX;
+
+    /**
+     * The Y-positions of the Balls inside the Viewport.
+     */
+    private final double[] visibleY;
+
+    /**
+     * The last rendered frame, if it shows a resting Ball, or null if the
+     * next painting has to render. Only used by the Event-Dispatch-Thread.
+     */
+    private BufferedImage cachedFrame;
+
+    /**
+     * The sequence of the Ball-state the cachedFrame shows.
+     */
+    private long cachedSequence;
+
     /**
      * The current Ball-state. Changes, when the Ball gets inactive or active-
      */
@@ -38,11 +117,18 @@ public class Field extends JPanel implements BallStateObserver {
      */
     private final int delay;
 
+    /**
+     * If the first frame has been painted and the simulation been started.
+     */
+    private boolean firstFramePainted;
+
     /**
      * Creates a new Field its own instantiated Simulation. The preferred size
-     * of this Field depends on the given length and height for the box.
-     * The repaint-Timer is directly started and the ball-state directly
-     * visible.
+     * of this Field depends on the given length and height for the box, but
+     * is never larger than the screen. The Viewport initially shows the whole
+     * Box.
+     * The ball-state is directly visible, but the repaint-Timer and the
+     * movement are only started after the first frame has been painted.
      *
      * @param boxLength  the length of the instantiated Box
      * @param boxHeight  the height of the instantiated Box
@@ -51,11 +137,36 @@ public class Field extends JPanel implements BallStateObserver {
     public Field(int boxLength, int boxHeight, int ballRadius, int delay) {
         simulation = new MovementSimulator(boxLength, boxHeight, ballRadius);
         simulation.registerObserver(this);
-        setPreferredSize(new Dimension(boxLength, boxHeight));
+        stateConsumer = simulation.getStateBuffer()
+                .createConsumer(SlowConsumerPolicy.CONFLATE);
+        stateFrame = new StateFrame();
+        renderer = new BallRenderer();
+        ballsX = new double[1];
+        ballsY = new double[1];
+        visibleBalls = new int[1];
+        visibleX = new double[1];
+        visibleY = new double[1];
+        grid = new SpatialGrid(boxLength, boxHeight, 4 * ballRadius + 1);
+
+        Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
+        Dimension size = new Dimension(
+                Math.min(boxLength, screen.width * 9 / 10),
+                Math.min(boxHeight, screen.height * 9 / 10));
+        setPreferredSize(size);
+        viewport = Viewport.fitting(boxLength, boxHeight, size.width,
+                size.height);
+        installViewportControls();
         this.delay = delay;
 
         ballState = new JLabel();
         add(ballState);
+    }
+
+    /**
+     * Starts the repaint-Timer and the movement of the Ball. Is called after
+     * the first frame has been painted.
+     */
+    private void startSimulation() {
         startRepaintTimer();
         simulation.startMovement();
     }
@@ -76,8 +187,9 @@ public class Field extends JPanel implements BallStateObserver {
 
     /**
      * Notifies this Field to stop its repainting-Thread and change the current
-     * for the user visible ball-state to inactive on this JPanel. Does nothing
-     * if the repaint-Timer has not been started.
+     * for the user visible ball-state to inactive on this JPanel. The Field is
+     * repainted once more, so the resting Ball is drawn and its frame gets
+     * cached. Does nothing if the repaint-Timer has not been started.
      *
      * @see BallStateObserver
      */
@@ -85,9 +197,45 @@ public class Field extends JPanel implements BallStateObserver {
         if (repaintTimer != null) {
             repaintTimer.stop();
             ballState.setText("Ball rests");
+            repaint();
         }
     }
 
+    /**
+     * Lets the mouse-wheel zoom the Viewport around the mouse-pointer and
+     * dragging with the mouse pan it. The Field is repainted after every
+     * change, even if the Ball is resting, and the cached frame is discarded.
+     */
+    private void installViewportControls() {
+        MouseAdapter controls = new MouseAdapter() {
+            private Point lastDrag;
+
+            public void mousePressed(MouseEvent event) {
+                lastDrag = event.getPoint();
+            }
+
+            public void mouseDragged(MouseEvent event) {
+                if (lastDrag != null) {
+                    viewport.pan(event.getX() - lastDrag.x,
+                            event.getY() - lastDrag.y);
+                    lastDrag = event.getPoint();
+                    cachedFrame = null;
+                    repaint();
+                }
+            }
+
+            public void mouseWheelMoved(MouseWheelEvent event) {
+                viewport.zoom(event.getX(), event.getY(),
+                        Math.pow(1.1, -event.getPreciseWheelRotation()));
+                cachedFrame = null;
+                repaint();
+            }
+        };
+        addMouseListener(controls);
+        addMouseMotionListener(controls);
+        addMouseWheelListener(controls);
+    }
+
     /**
      * Starts the repainting-Thread. The repainting-Thread will not be started
      * if it has already been started.
@@ -113,21 +261,67 @@ public class Field extends JPanel implements BallStateObserver {
 
     /**
      * Draws the Ball of the given Simulation on this JPanel.
+     * The Ball-state is taken from the latest frame of the StateRingBuffer,
+     * so the painting never locks the Ball. Until the first frame has been
+     * published, the Ball is drawn at its start position. After the first
+     * painting the simulation is started and the property
+     * {@code "firstFrame"} is fired.
      * The location of the drawn Ball depends on its x-Coordinate and
-     * its Y-Coordinate, which are interpreted as Integer-values.
-     * The color of the Ball is black and it is represented as a simple circle,
-     * The size of the Ball depends on its radius.
+     * its Y-Coordinate. The color of the Ball is black and it is represented
+     * as a simple circle, The size of the Ball depends on its radius.
+     * The Ball is drawn by a BallRenderer into an image, which is drawn on
+     * this JPanel. Only the Balls the SpatialGrid finds inside the Viewport
+     * are handed over to the BallRenderer. The image of a resting Ball is
+     * cached and drawn again as long as the Ball-state, the Viewport and the
+     * size of this JPanel do not change.
      *
      * @param g the Graphics.
      * @see Graphics
+     * @see BallRenderer
+     * @see Viewport
      */
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        int ballX = (int) simulation.getBallX();
-        int ballY = (int) simulation.getBallY();
+        stateConsumer.readLatest(stateFrame);
+        if (cachedFrame != null && cachedSequence == stateFrame.getSequence()
+                && cachedFrame.getWidth() == getWidth()
+                && cachedFrame.getHeight() == getHeight()) {
+            g.drawImage(cachedFrame, 0, 0, null);
+            return;
+        }
+        if (stateFrame.isFilled()) {
+            ballsX[0] = stateFrame.getX();
+            ballsY[0] = stateFrame.getY();
+        } else {
+            ballsX[0] = simulation.getBallX();
+            ballsY[0] = simulation.getBallY();
+        }
+        grid.rebuild(ballsX, ballsY, 1);
+
         int ballRadius = simulation.getBallRadius();
-        g.fillOval(ballX - ballRadius, ballY - ballRadius, ballRadius * 2,
-                ballRadius * 2);
+        int visible = grid.query(
+                viewport.screenToWorldX(0) - ballRadius,
+                viewport.screenToWorldY(0) - ballRadius,
+                viewport.screenToWorldX(getWidth()) + ballRadius,
+                viewport.screenToWorldY(getHeight()) + ballRadius,
+                ballsX, ballsY, visibleBalls);
+        for (int i = 0; i < visible; i++) {
+            visibleX[i] = ballsX[visibleBalls[i]];
+            visibleY[i] = ballsY[visibleBalls[i]];
+        }
+        BufferedImage frame = renderer.render(visibleX, visibleY, visible,
+                ballRadius, viewport.getOriginX(), viewport.getOriginY(),
+                viewport.getScale(), getWidth(), getHeight());
+        g.drawImage(frame, 0, 0, null);
+        cachedFrame = stateFrame.isFilled() && stateFrame.isInactive()
+                ? frame : null;
+        cachedSequence = stateFrame.getSequence();
+
+        if (!firstFramePainted) {
+            firstFramePainted = true;
+            SwingUtilities.invokeLater(this::startSimulation);
+            firePropertyChange("firstFrame", false, true);
+        }
     }
 }
\ No newline at end of file
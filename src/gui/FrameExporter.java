@@ -0,0 +1,344 @@
+package gui;
+
+import recording.TrajectoryReader;
+import simulation.MovementSimulator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A FrameExporter renders a simulation offscreen into numbered PNG-images,
+ * which can be turned into a video. The frames are drawn with the same
+ * BallRenderer and Viewport as a Field and are taken either from a recorded
+ * trajectory or from a headless MovementSimulator, so the export is not
+ * bound to the real-time speed of the simulation.
+ * <p>
+ * The PNG-encoding is done by a pool of worker-Threads. Every frame in
+ * progress occupies one of a fixed number of images, so the memory used by
+ * frames that are not yet written is bounded: when all images are in use,
+ * rendering waits until a worker has finished one.
+ *
+ * @see BallRenderer
+ * @see TrajectoryReader
+ */
+public class FrameExporter implements Closeable {
+
+    /**
+     * The color behind the Balls, which is the default background of a
+     * Field.
+     */
+    private static final int BACKGROUND = 0xEEEEEE;
+
+    /**
+     * The directory the images are written to.
+     */
+    private final File directory;
+
+    /**
+     * The width of an image.
+     */
+    private final int width;
+
+    /**
+     * The height of an image.
+     */
+    private final int height;
+
+    /**
+     * The visible part of the Box.
+     */
+    private final Viewport viewport;
+
+    /**
+     * The BallRenderer, which draws the Balls.
+     */
+    private final BallRenderer renderer;
+
+    /**
+     * The images that are not used by a frame in progress.
+     */
+    private final BlockingQueue<BufferedImage> freeImages;
+
+    /**
+     * The worker-Threads, which encode the images.
+     */
+    private final ExecutorService encoders;
+
+    /**
+     * The X-position of the exported Ball.
+     */
+    private final double[] ballX;
+
+    /**
+     * The Y-position of the exported Ball.
+     */
+    private final double[] ballY;
+
+    /**
+     * The number of the next frame.
+     */
+    private int frameNumber;
+
+    /**
+     * The first failure of a worker-Thread, or null.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Creates a new FrameExporter.
+     *
+     * @param directory   the directory for the images, which is created if
+     *                    it does not exist
+     * @param viewport    the visible part of the Box
+     * @param width       the width of an image
+     * @param height      the height of an image
+     * @param workers     the number of worker-Threads
+     * @param maxInFlight the maximal number of frames in progress
+     */
+    public FrameExporter(File directory, Viewport viewport, int width,
+                         int height, int workers, int maxInFlight) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalArgumentException(
+                    "The directory can not be created: " + directory);
+        }
+        this.directory = directory;
+        this.viewport = viewport;
+        this.width = width;
+        this.height = height;
+        renderer = new BallRenderer();
+        freeImages = new ArrayBlockingQueue<>(maxInFlight);
+        for (int i = 0; i < maxInFlight; i++) {
+            freeImages.add(new BufferedImage(width, height,
+                    BufferedImage.TYPE_INT_RGB));
+        }
+        encoders = Executors.newFixedThreadPool(workers);
+        ballX = new double[1];
+        ballY = new double[1];
+    }
+
+    /**
+     * Creates a new FrameExporter, which shows a whole Box of the given size
+     * with one worker-Thread per available processor and two frames in
+     * progress per worker.
+     *
+     * @param directory the directory for the images
+     * @param boxLength the length of the Box
+     * @param boxHeight the height of the Box
+     */
+    public FrameExporter(File directory, int boxLength, int boxHeight) {
+        this(directory, new Viewport(0, 0, 1), boxLength, boxHeight,
+                Runtime.getRuntime().availableProcessors(),
+                2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Exports a frame for every given number of records of a trajectory.
+     *
+     * @param reader          the TrajectoryReader of the trajectory
+     * @param ballRadius      the radius of the Ball
+     * @param recordsPerFrame the number of records per frame
+     * @return the number of exported frames
+     * @throws IOException if the trajectory can not be read or a frame can
+     *                     not be written
+     */
+    public int exportRecording(TrajectoryReader reader, int ballRadius,
+                               int recordsPerFrame) throws IOException {
+        int frames = 0;
+        long records = 0;
+        while (reader.next()) {
+            if (records % recordsPerFrame == 0) {
+                exportFrame(reader.getX(), reader.getY(), ballRadius);
+                frames++;
+            }
+            records++;
+        }
+        return frames;
+    }
+
+    /**
+     * Runs a headless MovementSimulator as fast as possible and exports a
+     * frame for every given number of simulated milliseconds.
+     *
+     * @param simulator      the MovementSimulator, which must not be started
+     * @param duration       the simulated milliseconds to export
+     * @param millisPerFrame the simulated milliseconds per frame
+     * @return the number of exported frames
+     * @throws IOException if a frame can not be written
+     */
+    public int exportHeadlessRun(MovementSimulator simulator, long duration,
+                                 int millisPerFrame) throws IOException {
+        int frames = 0;
+        long simulatedTime = 0;
+        long nextFrame = 0;
+        while (simulatedTime < duration) {
+            simulatedTime += simulator.tick();
+            if (simulatedTime >= nextFrame) {
+                exportFrame(simulator.getBallX(), simulator.getBallY(),
+                        simulator.getBallRadius());
+                frames++;
+                nextFrame += millisPerFrame;
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Renders a single frame and hands it over to a worker-Thread. Waits if
+     * all images are in use.
+     *
+     * @param x          the X-position of the Ball
+     * @param y          the Y-position of the Ball
+     * @param ballRadius the radius of the Ball
+     * @throws IOException if a worker-Thread has failed or the waiting has
+     *                     been interrupted
+     */
+    public void exportFrame(double x, double y, int ballRadius)
+            throws IOException {
+        checkFailure();
+        BufferedImage frame;
+        try {
+            frame = freeImages.take();
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The export has been interrupted");
+        }
+        ballX[0] = x;
+        ballY[0] = y;
+        BufferedImage balls = renderer.render(ballX, ballY, 1, ballRadius,
+                viewport.getOriginX(), viewport.getOriginY(),
+                viewport.getScale(), width, height);
+        composeOnBackground(balls, frame);
+
+        File file = new File(directory,
+                String.format("frame-%06d.png", frameNumber++));
+        encoders.execute(() -> {
+            try {
+                writePng(frame, file);
+            } catch (IOException exception) {
+                if (failure == null) {
+                    failure = exception;
+                }
+            } finally {
+                freeImages.add(frame);
+            }
+        });
+    }
+
+    /**
+     * Writes an image as PNG with a fast compression-level. The frames
+     * consist of large areas of a single color, so a higher level hardly
+     * makes them smaller but takes much longer.
+     *
+     * @param image the image to write
+     * @param file  the file to write to
+     * @throws IOException if the file can not be written
+     */
+    private static void writePng(BufferedImage image, File file)
+            throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png")
+                .next();
+        ImageWriteParam parameters = writer.getDefaultWriteParam();
+        if (parameters.canWriteCompressed()) {
+            parameters.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parameters.setCompressionQuality(0.9f);
+        }
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), parameters);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Blends the black Balls of the BallRenderer onto the background.
+     *
+     * @param balls the image of the BallRenderer
+     * @param frame the image of the frame
+     */
+    private static void composeOnBackground(BufferedImage balls,
+                                            BufferedImage frame) {
+        int[] source = ((DataBufferInt) balls.getRaster().getDataBuffer())
+                .getData();
+        int[] target = ((DataBufferInt) frame.getRaster().getDataBuffer())
+                .getData();
+        for (int i = 0; i < target.length; i++) {
+            int transparency = 255 - (source[i] >>> 24);
+            int red = ((BACKGROUND >> 16) & 0xFF) * transparency / 255;
+            int green = ((BACKGROUND >> 8) & 0xFF) * transparency / 255;
+            int blue = (BACKGROUND & 0xFF) * transparency / 255;
+            target[i] = (red << 16) | (green << 8) | blue;
+        }
+    }
+
+    /**
+     * Throws the first failure of a worker-Thread.
+     *
+     * @throws IOException the failure of a worker-Thread
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Waits until all frames have been written and stops the
+     * worker-Threads.
+     *
+     * @throws IOException if a frame could not be written
+     */
+    public void close() throws IOException {
+        encoders.shutdown();
+        try {
+            encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Exports a headless run of a 640 x 480 Box with 25 frames per second.
+     * <p>
+     * Usage: {@code java gui.FrameExporter directory [seconds] [seed]}
+     *
+     * @param args the directory, the simulated seconds and the seed
+     * @throws IOException if a frame can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println(
+                    "Usage: java gui.FrameExporter directory [seconds] [seed]");
+            System.exit(1);
+        }
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 60;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+
+        long start = System.nanoTime();
+        int frames;
+        try (FrameExporter exporter = new FrameExporter(new File(args[0]),
+                640, 480)) {
+            frames = exporter.exportHeadlessRun(
+                    new MovementSimulator(640, 480, 20, seed),
+                    seconds * 1000, 40);
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d frames for %d simulated seconds in %.1f s "
+                + "(%.1f%% of real-time)%n", frames, seconds, elapsed,
+                100 * elapsed / seconds);
+    }
+}
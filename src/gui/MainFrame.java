@@ -1,5 +1,7 @@
 package gui;
 
+import simulation.StartupClock;
+
 import javax.swing.*;
 import java.io.File;
 import java.io.IOException;
@@ -8,7 +10,8 @@ import java.io.IOException;
  * A MainFrame is the main visible JFrame that contains a Field.
  * The title of the MainFrame is "Ball in Box". When the MainFrame is
  * instantiated, the position of the MainFrame is set to the middle of the
- * screen, it can not be resized.
+ * screen. It can be resized, the Field shows the Box through a zoomable
+ * Viewport.
  *
  * @see Field
  */
@@ -34,7 +37,6 @@ public class MainFrame extends JFrame {
 
         field = new Field(length, height, ballRadius, repaintDelay);
         setContentPane(field);
-        setResizable(false);
         pack();
         setDefaultCloseOperation(EXIT_ON_CLOSE);
     }
@@ -42,16 +44,32 @@ public class MainFrame extends JFrame {
     /**
      * Creates a new MainFrame with fixed length and height of the box, fixed
      * radius of the ball and fixed delay-time for the repainting-Thread of
-     * A Field.
+     * A Field. When the first frame has been painted, the milliseconds since
+     * the start of the Java virtual machine are printed. With
+     * {@code --exit-after <seconds>} the application exits the given seconds
+     * after the first frame, for instance to record a class-data sharing
+     * archive.
      *
-     * @param args unused parameters
+     * @param args optionally {@code --exit-after <seconds>}
      */
     public static void main(String[] args) {
+        int exitAfter = args.length > 1 && args[0].equals("--exit-after")
+                ? Integer.parseInt(args[1]) : -1;
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
                 MainFrame g = new MainFrame(640, 480, 20, 25);
+                g.field.addPropertyChangeListener("firstFrame", event -> {
+                    System.out.printf("Time to first frame: %d ms%n",
+                            StartupClock.millisSinceStart());
+                    if (exitAfter >= 0) {
+                        Timer exit = new Timer(exitAfter * 1000,
+                                timeout -> System.exit(0));
+                        exit.setRepeats(false);
+                        exit.start();
+                    }
+                });
                 g.setVisible(true);
-        }
+            }
         });
     }
 }
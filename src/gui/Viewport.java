@@ -0,0 +1,171 @@
+package gui;
+
+/**
+ * A Viewport describes which part of a Box is visible on the screen. It maps
+ * world-coordinates of the Box to screen-coordinates of a Field and back.
+ * The Viewport can be zoomed around a point of the screen and panned.
+ *
+ * @see Field
+ */
+public class Viewport {
+
+    /**
+     * The smallest number of pixels per unit.
+     */
+    private static final double MIN_SCALE = 0.001;
+
+    /**
+     * The largest number of pixels per unit.
+     */
+    private static final double MAX_SCALE = 64;
+
+    /**
+     * The X-coordinate of the world, which is shown at the left edge.
+     */
+    private double originX;
+
+    /**
+     * The Y-coordinate of the world, which is shown at the top edge.
+     */
+    private double originY;
+
+    /**
+     * The number of pixels per unit.
+     */
+    private double scale;
+
+    /**
+     * Creates a new Viewport, which shows the world from the given origin
+     * with the given scale.
+     *
+     * @param originX the X-coordinate shown at the left edge
+     * @param originY the Y-coordinate shown at the top edge
+     * @param scale   the number of pixels per unit
+     */
+    public Viewport(double originX, double originY, double scale) {
+        this.originX = originX;
+        this.originY = originY;
+        this.scale = clampScale(scale);
+    }
+
+    /**
+     * Creates a new Viewport, which shows a whole world of the given size on
+     * a screen of the given size. The world is never enlarged.
+     *
+     * @param worldLength  the length of the world
+     * @param worldHeight  the height of the world
+     * @param screenWidth  the width of the screen
+     * @param screenHeight the height of the screen
+     * @return the new Viewport
+     */
+    public static Viewport fitting(double worldLength, double worldHeight,
+                                   int screenWidth, int screenHeight) {
+        double scale = Math.min(1, Math.min(screenWidth / worldLength,
+                screenHeight / worldHeight));
+        return new Viewport(0, 0, scale);
+    }
+
+    /**
+     * Limits a scale to the allowed range.
+     *
+     * @param scale the wanted scale
+     * @return the allowed scale
+     */
+    private static double clampScale(double scale) {
+        return Math.min(MAX_SCALE, Math.max(MIN_SCALE, scale));
+    }
+
+    /**
+     * Transforms a world X-coordinate into a screen X-coordinate.
+     *
+     * @param x the world X-coordinate
+     * @return the screen X-coordinate
+     */
+    public double worldToScreenX(double x) {
+        return (x - originX) * scale;
+    }
+
+    /**
+     * Transforms a world Y-coordinate into a screen Y-coordinate.
+     *
+     * @param y the world Y-coordinate
+     * @return the screen Y-coordinate
+     */
+    public double worldToScreenY(double y) {
+        return (y - originY) * scale;
+    }
+
+    /**
+     * Transforms a screen X-coordinate into a world X-coordinate.
+     *
+     * @param x the screen X-coordinate
+     * @return the world X-coordinate
+     */
+    public double screenToWorldX(double x) {
+        return x / scale + originX;
+    }
+
+    /**
+     * Transforms a screen Y-coordinate into a world Y-coordinate.
+     *
+     * @param y the screen Y-coordinate
+     * @return the world Y-coordinate
+     */
+    public double screenToWorldY(double y) {
+        return y / scale + originY;
+    }
+
+    /**
+     * Zooms by the given factor, so the world-point under the given
+     * screen-point stays where it is.
+     *
+     * @param screenX the screen X-coordinate of the fixed point
+     * @param screenY the screen Y-coordinate of the fixed point
+     * @param factor  the factor the scale is multiplied with
+     */
+    public void zoom(double screenX, double screenY, double factor) {
+        double worldX = screenToWorldX(screenX);
+        double worldY = screenToWorldY(screenY);
+        scale = clampScale(scale * factor);
+        originX = worldX - screenX / scale;
+        originY = worldY - screenY / scale;
+    }
+
+    /**
+     * Moves the visible part of the world by the given number of pixels.
+     *
+     * @param screenDeltaX the pixels the world moves to the right
+     * @param screenDeltaY the pixels the world moves down
+     */
+    public void pan(double screenDeltaX, double screenDeltaY) {
+        originX -= screenDeltaX / scale;
+        originY -= screenDeltaY / scale;
+    }
+
+    /**
+     * Returns the X-coordinate of the world, which is shown at the left edge.
+     *
+     * @return the X-coordinate of the origin
+     */
+    public double getOriginX() {
+        return originX;
+    }
+
+    /**
+     * Returns the Y-coordinate of the world, which is shown at the top edge.
+     *
+     * @return the Y-coordinate of the origin
+     */
+    public double getOriginY() {
+        return originY;
+    }
+
+    /**
+     * Returns the number of pixels per unit.
+     *
+     * @return the scale
+     */
+    public double getScale() {
+        return scale;
+    }
+}
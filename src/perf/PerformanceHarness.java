@@ -0,0 +1,265 @@
+package perf;
+
+import simulation.BoxStatistics;
+import simulation.MovementSimulator;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * The PerformanceHarness guards the simulation-package against allocation-
+ * and latency-regressions. For every Scenario it drives a headless
+ * MovementSimulator for a fixed number of ticks, measures the allocated
+ * bytes per tick and the 99th percentile of the tick-time and compares them
+ * with the thresholds of the Scenario. Whenever a tick leaves the regime of
+ * the Scenario, for instance because the Ball comes to rest, the start-state
+ * is restored, so the measurement covers the path the Scenario is named
+ * for. The warm-up runs on a separate MovementSimulator. The result is
+ * printed as a table, including the share of the ticks that stayed in the
+ * regime.
+ * If a threshold is exceeded, the harness exits with the status 1, so it can
+ * be run like an ordinary test.
+ * <p>
+ * The thresholds are stored in a properties-file with the keys
+ * {@code <scenario>.bytesPerTick} and {@code <scenario>.p99Nanos}. Running
+ * the harness with {@code --update} writes the measured values, with some
+ * headroom, into the file instead of checking them, so thresholds are only
+ * changed deliberately.
+ * <p>
+ * Usage: {@code java perf.PerformanceHarness [--update] [thresholds-file]}
+ *
+ * @see Scenario
+ */
+public class PerformanceHarness {
+
+    /**
+     * The default path of the thresholds-file, relative to the project.
+     */
+    private static final String DEFAULT_THRESHOLDS =
+            "src/perf/perf-thresholds.properties";
+
+    /**
+     * The number of ticks before the measurement, which let the JIT compile
+     * the tick.
+     */
+    private static final int WARM_UP_TICKS = 50_000;
+
+    /**
+     * The number of measured ticks.
+     */
+    private static final int MEASURED_TICKS = 100_000;
+
+    /**
+     * The factor between the measured allocated bytes and the threshold
+     * written by {@code --update}. The allocations of a tick hardly vary.
+     */
+    private static final double ALLOCATION_HEADROOM = 2;
+
+    /**
+     * The factor between the measured tick-time and the threshold written by
+     * {@code --update}. The tick-time depends on the load of the machine.
+     */
+    private static final double LATENCY_HEADROOM = 5;
+
+    /**
+     * Not instantiable.
+     */
+    private PerformanceHarness() {
+    }
+
+    /**
+     * Measures all Scenarios and checks or updates the thresholds.
+     *
+     * @param args {@code --update} and the path of the thresholds-file, both
+     *             optional
+     * @throws IOException if the thresholds-file can not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        boolean update = false;
+        String path = DEFAULT_THRESHOLDS;
+        for (String arg : args) {
+            if (arg.equals("--update")) {
+                update = true;
+            } else {
+                path = arg;
+            }
+        }
+
+        Properties thresholds = new Properties();
+        if (!update) {
+            try (InputStream in = new FileInputStream(path)) {
+                thresholds.load(in);
+            }
+        }
+
+        boolean failed = false;
+        System.out.printf("%-12s %9s %14s %14s %14s %14s  %s%n", "scenario",
+                "in regime", "bytes/tick", "limit", "p99 ns", "limit",
+                "result");
+        for (Scenario scenario : Scenario.values()) {
+            long[] measurement = measure(scenario);
+            long bytesPerTick = measurement[0];
+            long p99 = measurement[1];
+            double inRegime = (double) measurement[2] / MEASURED_TICKS;
+            String name = scenario.getScenarioName();
+            if (update) {
+                thresholds.setProperty(name + ".bytesPerTick", Long.toString(
+                        (long) Math.ceil(Math.max(bytesPerTick, 16)
+                                * ALLOCATION_HEADROOM)));
+                thresholds.setProperty(name + ".p99Nanos", Long.toString(
+                        (long) Math.ceil(p99 * LATENCY_HEADROOM)));
+            }
+            long bytesLimit = readThreshold(thresholds, name
+                    + ".bytesPerTick");
+            long p99Limit = readThreshold(thresholds, name + ".p99Nanos");
+            boolean passed = bytesPerTick <= bytesLimit && p99 <= p99Limit;
+            failed |= !passed;
+            System.out.printf("%-12s %8.1f%% %14d %14d %14d %14d  %s%n",
+                    name, 100 * inRegime, bytesPerTick, bytesLimit, p99,
+                    p99Limit,
+                    passed ? "ok" : describeFailure(bytesPerTick, bytesLimit,
+                            p99, p99Limit));
+        }
+
+        if (update) {
+            try (OutputStream out = new FileOutputStream(path)) {
+                thresholds.store(out, "Thresholds of the PerformanceHarness,"
+                        + " written with --update");
+            }
+            System.out.println("Thresholds written to " + path);
+        } else if (failed) {
+            System.out.println("Performance regression: a threshold in "
+                    + path + " has been exceeded");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Measures a Scenario. The ticks are warmed up on a separate
+     * MovementSimulator before the measured one is created.
+     *
+     * @param scenario the Scenario
+     * @return the allocated bytes per tick, the 99th percentile of the
+     * tick-time in nanoseconds and the number of ticks that stayed in the
+     * regime
+     */
+    private static long[] measure(Scenario scenario) {
+        runTicks(scenario, createSimulator(scenario), WARM_UP_TICKS, null);
+
+        long[] tickTimes = new long[MEASURED_TICKS];
+        long[] result = runTicks(scenario, createSimulator(scenario),
+                MEASURED_TICKS, tickTimes);
+        Arrays.sort(tickTimes);
+        return new long[]{result[0] / MEASURED_TICKS,
+                tickTimes[(int) (MEASURED_TICKS * 0.99) - 1], result[1]};
+    }
+
+    /**
+     * Creates a MovementSimulator in the start-state of a Scenario with a
+     * BoxStatistics attached, like a running Box in the application.
+     *
+     * @param scenario the Scenario
+     * @return the MovementSimulator
+     */
+    private static MovementSimulator createSimulator(Scenario scenario) {
+        MovementSimulator simulator = new MovementSimulator(
+                scenario.getStart());
+        simulator.addPhysicsObserver(new BoxStatistics(
+                scenario.getStart().getBoxLength(),
+                scenario.getStart().getBoxHeight()));
+        return simulator;
+    }
+
+    /**
+     * Runs the given number of ticks and restores the start-state of the
+     * Scenario after every tick that left its regime. The allocations of the
+     * restoring are not counted.
+     *
+     * @param scenario  the Scenario
+     * @param simulator the MovementSimulator
+     * @param ticks     the number of ticks
+     * @param tickTimes the array for the tick-times in nanoseconds, or null
+     *                  if they are not needed
+     * @return the allocated bytes of the ticks and the number of ticks that
+     * stayed in the regime
+     */
+    private static long[] runTicks(Scenario scenario,
+                                   MovementSimulator simulator, int ticks,
+                                   long[] tickTimes) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        long restoringAllocations = 0;
+        long ticksInRegime = 0;
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ticks; i++) {
+            long wallHits = simulator.getWallHits();
+            long start = System.nanoTime();
+            simulator.tick();
+            long tickTime = System.nanoTime() - start;
+            if (tickTimes != null) {
+                tickTimes[i] = tickTime;
+            }
+            if (scenario.isInRegime(simulator.isBallInactive(),
+                    simulator.getWallHits() != wallHits)) {
+                ticksInRegime++;
+            } else {
+                long restoringStart =
+                        threads.getCurrentThreadAllocatedBytes();
+                simulator.restore(scenario.getStart());
+                restoringAllocations +=
+                        threads.getCurrentThreadAllocatedBytes()
+                                - restoringStart;
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes()
+                - allocatedBefore - restoringAllocations;
+        return new long[]{allocated, ticksInRegime};
+    }
+
+    /**
+     * Reads a threshold.
+     *
+     * @param thresholds the thresholds
+     * @param key        the key of the threshold
+     * @return the threshold
+     * @throws IllegalStateException if the threshold is missing
+     */
+    private static long readThreshold(Properties thresholds, String key) {
+        String value = thresholds.getProperty(key);
+        if (value == null) {
+            throw new IllegalStateException("Missing threshold " + key
+                    + ", run the harness with --update to create it");
+        }
+        return Long.parseLong(value.trim());
+    }
+
+    /**
+     * Describes which thresholds have been exceeded.
+     *
+     * @param bytesPerTick the allocated bytes per tick
+     * @param bytesLimit   the threshold for the allocated bytes
+     * @param p99          the 99th percentile of the tick-time
+     * @param p99Limit     the threshold for the tick-time
+     * @return the description
+     */
+    private static String describeFailure(long bytesPerTick, long bytesLimit,
+                                          long p99, long p99Limit) {
+        StringBuilder description = new StringBuilder("FAILED:");
+        if (bytesPerTick > bytesLimit) {
+            description.append(String.format(" allocates %.1fx the limit",
+                    (double) bytesPerTick / bytesLimit));
+        }
+        if (p99 > p99Limit) {
+            description.append(String.format(" p99 is %.1fx the limit",
+                    (double) p99 / p99Limit));
+        }
+        return description.toString();
+    }
+}
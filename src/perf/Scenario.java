@@ -0,0 +1,100 @@
+package perf;
+
+import simulation.SimulatorCheckpoint;
+
+/**
+ * A Scenario describes the start-state of a MovementSimulator that is
+ * measured by the PerformanceHarness and the regime the MovementSimulator
+ * has to stay in: if the Ball rests and if the ticks are shortened by
+ * collisions. Whenever a tick leaves the regime, the harness restores the
+ * start-state. The name of a Scenario is the prefix of its thresholds.
+ *
+ * @see PerformanceHarness
+ */
+enum Scenario {
+
+    /**
+     * A rolling Ball in a huge Box, which never hits a wall.
+     */
+    FREE_FLIGHT("free-flight", new SimulatorCheckpoint(1_000_000, 1_000_000,
+            20, 500_000, 500_000, 0.6, 0.8, 10, 1, 0), false, false),
+
+    /**
+     * A rolling Ball in a Box that leaves it only 4 units to move in each
+     * direction, so every tick is shortened by a collision.
+     */
+    WALL_HEAVY("wall-heavy", new SimulatorCheckpoint(44, 44, 20, 22, 22,
+            0.9, 0.7, 10, 1, 0), false, true),
+
+    /**
+     * A resting Ball, which does not get a new speed during the measurement.
+     */
+    AT_REST("at-rest", new SimulatorCheckpoint(640, 480, 20, 320, 240, 0, 0,
+            10, 1, Long.MAX_VALUE / 2), true, false);
+
+    /**
+     * The name of the Scenario in the thresholds and the report.
+     */
+    private final String scenarioName;
+
+    /**
+     * The start-state of the MovementSimulator.
+     */
+    private final SimulatorCheckpoint start;
+
+    /**
+     * If the Ball rests in the regime of the Scenario.
+     */
+    private final boolean resting;
+
+    /**
+     * If every tick of the regime is shortened by a collision.
+     */
+    private final boolean hittingWalls;
+
+    /**
+     * Creates a new Scenario.
+     *
+     * @param scenarioName the name of the Scenario
+     * @param start        the start-state of the MovementSimulator
+     * @param resting      if the Ball rests in the regime
+     * @param hittingWalls if every tick of the regime is shortened by a
+     *                     collision
+     */
+    Scenario(String scenarioName, SimulatorCheckpoint start, boolean resting,
+             boolean hittingWalls) {
+        this.scenarioName = scenarioName;
+        this.start = start;
+        this.resting = resting;
+        this.hittingWalls = hittingWalls;
+    }
+
+    /**
+     * Returns if a tick stayed in the regime of the Scenario.
+     *
+     * @param restingAfterTick if the Ball rests after the tick
+     * @param hitWall          if the Ball hit a wall during the tick
+     * @return if the tick stayed in the regime
+     */
+    boolean isInRegime(boolean restingAfterTick, boolean hitWall) {
+        return restingAfterTick == resting && hitWall == hittingWalls;
+    }
+
+    /**
+     * Returns the name of the Scenario.
+     *
+     * @return the name
+     */
+    String getScenarioName() {
+        return scenarioName;
+    }
+
+    /**
+     * Returns the start-state of the MovementSimulator.
+     *
+     * @return the start-state
+     */
+    SimulatorCheckpoint getStart() {
+        return start;
+    }
+}
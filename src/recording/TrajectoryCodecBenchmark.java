@@ -0,0 +1,179 @@
+package recording;
+
+import simulation.MovementSimulator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The TrajectoryCodecBenchmark measures the trajectory format: the encode-
+ * and decode-throughput in MB/s of raw positions (two double-values per
+ * record) and the compression-ratio compared to these raw positions.
+ * The positions are taken from a seeded, headless MovementSimulator.
+ * <p>
+ * Usage: {@code java recording.TrajectoryCodecBenchmark [records] [seed]}
+ *
+ * @see TrajectoryWriter
+ * @see TrajectoryReader
+ */
+public class TrajectoryCodecBenchmark {
+
+    /**
+     * The number of bytes of a raw record.
+     */
+    private static final int RAW_RECORD_BYTES = 2 * Double.BYTES;
+
+    /**
+     * The number of measured rounds.
+     */
+    private static final int ROUNDS = 5;
+
+    /**
+     * Not instantiable.
+     */
+    private TrajectoryCodecBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints the results.
+     *
+     * @param args the number of records and the seed, both optional
+     * @throws IOException if the temporary trajectory-file can not be used
+     */
+    public static void main(String[] args) throws IOException {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0])
+                : 2_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        double[] positions = new double[2 * recordCount];
+        boolean[] keyframes = new boolean[recordCount];
+        recordPositions(seed, positions, keyframes);
+        double rawMegabytes = (double) recordCount * RAW_RECORD_BYTES
+                / (1024 * 1024);
+
+        byte[] encoded = null;
+        long encodeTime = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            encoded = encode(positions, keyframes);
+            encodeTime = Math.min(encodeTime, System.nanoTime() - start);
+        }
+
+        long decodeTime = Long.MAX_VALUE;
+        double maxError = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            maxError = decode(encoded, positions);
+            decodeTime = Math.min(decodeTime, System.nanoTime() - start);
+        }
+
+        Path file = Files.createTempFile("trajectory", ".bin");
+        long seekTime;
+        try {
+            Files.write(file, encoded);
+            TrajectoryFile trajectoryFile = new TrajectoryFile(file);
+            long start = System.nanoTime();
+            try (TrajectoryReader reader = trajectoryFile.readerAt(
+                    recordCount - 1)) {
+                reader.next();
+            }
+            seekTime = System.nanoTime() - start;
+        } finally {
+            Files.delete(file);
+        }
+
+        System.out.printf("records:           %d%n", recordCount);
+        System.out.printf("raw size:          %.1f MB%n", rawMegabytes);
+        System.out.printf("encoded size:      %.1f MB (%.2f bytes/record)%n",
+                encoded.length / (1024.0 * 1024),
+                (double) encoded.length / recordCount);
+        System.out.printf("compression ratio: %.1f%n",
+                (double) recordCount * RAW_RECORD_BYTES / encoded.length);
+        System.out.printf("encode:            %.1f MB/s%n",
+                rawMegabytes / (encodeTime / 1e9));
+        System.out.printf("decode:            %.1f MB/s%n",
+                rawMegabytes / (decodeTime / 1e9));
+        System.out.printf("max error:         %.6f units%n", maxError);
+        System.out.printf("seek last record:  %.3f ms%n", seekTime / 1e6);
+    }
+
+    /**
+     * Records the positions of a headless MovementSimulator. A position is
+     * marked as keyframe when the Ball has hit a wall, started to move or
+     * come to rest. The following resting positions are not marked, they
+     * are encoded as zero deltas.
+     *
+     * @param seed      the seed of the MovementSimulator
+     * @param positions the array for the X- and Y-positions
+     * @param keyframes the array for the keyframe-marks
+     */
+    private static void recordPositions(long seed, double[] positions,
+                                        boolean[] keyframes) {
+        MovementSimulator simulator = new MovementSimulator(640, 480, 20,
+                seed);
+        long wallHits = 0;
+        boolean resting = true;
+        for (int i = 0; i < keyframes.length; i++) {
+            simulator.tick();
+            positions[2 * i] = simulator.getBallX();
+            positions[2 * i + 1] = simulator.getBallY();
+            keyframes[i] = resting != simulator.isBallInactive()
+                    || simulator.getWallHits() != wallHits;
+            wallHits = simulator.getWallHits();
+            resting = simulator.isBallInactive();
+        }
+    }
+
+    /**
+     * Encodes the positions into a trajectory.
+     *
+     * @param positions the X- and Y-positions
+     * @param keyframes the keyframe-marks
+     * @return the bytes of the trajectory
+     * @throws IOException if the trajectory can not be written
+     */
+    private static byte[] encode(double[] positions, boolean[] keyframes)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+                keyframes.length * 3);
+        try (TrajectoryWriter writer = new TrajectoryWriter(bytes)) {
+            for (int i = 0; i < keyframes.length; i++) {
+                if (keyframes[i]) {
+                    writer.appendKeyframe(positions[2 * i],
+                            positions[2 * i + 1]);
+                } else {
+                    writer.append(positions[2 * i], positions[2 * i + 1]);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a trajectory and compares it with the original positions.
+     *
+     * @param encoded   the bytes of the trajectory
+     * @param positions the original X- and Y-positions
+     * @return the largest difference between a decoded and an original
+     * coordinate
+     * @throws IOException if the trajectory can not be read
+     */
+    private static double decode(byte[] encoded, double[] positions)
+            throws IOException {
+        double maxError = 0;
+        try (TrajectoryReader reader = new TrajectoryReader(
+                new ByteArrayInputStream(encoded))) {
+            int i = 0;
+            while (reader.next()) {
+                maxError = Math.max(maxError, Math.max(
+                        Math.abs(reader.getX() - positions[2 * i]),
+                        Math.abs(reader.getY() - positions[2 * i + 1])));
+                i++;
+            }
+        }
+        return maxError;
+    }
+}
@@ -0,0 +1,122 @@
+package recording;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+
+/**
+ * A TrajectoryFile provides random access to a trajectory, which has been
+ * written into a file. The block-index at the end of the file is read once,
+ * afterwards decoding can start at the block that contains the wanted record
+ * instead of at the beginning of the file.
+ *
+ * @see TrajectoryWriter
+ */
+public class TrajectoryFile {
+
+    /**
+     * The path of the file.
+     */
+    private final Path path;
+
+    /**
+     * The size of a quantization-step.
+     */
+    private final double precision;
+
+    /**
+     * The number of records per block.
+     */
+    private final int recordsPerBlock;
+
+    /**
+     * The number of records.
+     */
+    private final long records;
+
+    /**
+     * The byte-offsets of the blocks.
+     */
+    private final long[] blockOffsets;
+
+    /**
+     * Opens a trajectory-file and reads its header and block-index.
+     *
+     * @param path the path of the file
+     * @throws IOException if the file can not be read or is not a complete
+     *                     trajectory
+     */
+    public TrajectoryFile(Path path) throws IOException {
+        this.path = path;
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(),
+                "r")) {
+            if (file.readInt() != TrajectoryFormat.MAGIC) {
+                throw new IOException("The file is not a trajectory: "
+                        + path);
+            }
+            byte version = file.readByte();
+            if (version != TrajectoryFormat.VERSION) {
+                throw new IOException("Unsupported trajectory version: "
+                        + version);
+            }
+            precision = file.readDouble();
+            recordsPerBlock = file.readInt();
+
+            file.seek(file.length() - TrajectoryFormat.TRAILER_BYTES);
+            long footerOffset = file.readLong();
+            if (file.readInt() != TrajectoryFormat.MAGIC) {
+                throw new IOException("The trajectory is not complete: "
+                        + path);
+            }
+            file.seek(footerOffset);
+            records = file.readLong();
+            blockOffsets = new long[file.readInt()];
+            for (int i = 0; i < blockOffsets.length; i++) {
+                blockOffsets[i] = file.readLong();
+            }
+        }
+    }
+
+    /**
+     * Returns a TrajectoryReader, whose next record is the given record.
+     * Only the records between the start of the block and the given record
+     * have to be decoded.
+     *
+     * @param record the index of the record
+     * @return the positioned TrajectoryReader
+     * @throws IOException               if the file can not be read
+     * @throws IndexOutOfBoundsException if there is no such record
+     */
+    public TrajectoryReader readerAt(long record) throws IOException {
+        if (record < 0 || record >= records) {
+            throw new IndexOutOfBoundsException("Record " + record);
+        }
+        int block = (int) (record / recordsPerBlock);
+        RandomAccessFile file = new RandomAccessFile(path.toFile(), "r");
+        file.seek(blockOffsets[block]);
+        TrajectoryReader reader = new TrajectoryReader(
+                Channels.newInputStream(file.getChannel()), precision,
+                (long) block * recordsPerBlock);
+        reader.skip(record - (long) block * recordsPerBlock);
+        return reader;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the size of a quantization-step.
+     *
+     * @return the precision
+     */
+    public double getPrecision() {
+        return precision;
+    }
+}
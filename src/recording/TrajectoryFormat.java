@@ -0,0 +1,120 @@
+package recording;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * TrajectoryFormat contains the constants and the variable-length number
+ * encoding of the trajectory format, which is shared by the
+ * TrajectoryWriter and the TrajectoryReader.
+ * <p>
+ * A trajectory starts with a header (magic, version, precision, records per
+ * block), followed by the records and a footer with the block-index. Every
+ * position is quantized to the precision. A free-flight record contains the
+ * change of the quantized velocity (the second difference of the position)
+ * for both axes, zig-zag encoded as variable-length numbers. Because the Ball
+ * moves on straight lines between wall-hits, these are almost always 0, so a
+ * free-flight record usually takes two bytes. A keyframe contains the
+ * absolute quantized position and is written at the start of every block, at
+ * collisions and when a resting Ball starts to move again.
+ *
+ * @see TrajectoryWriter
+ * @see TrajectoryReader
+ */
+final class TrajectoryFormat {
+
+    /**
+     * The first bytes of every trajectory.
+     */
+    static final int MAGIC = 0x42495452;
+
+    /**
+     * The version of the format.
+     */
+    static final byte VERSION = 1;
+
+    /**
+     * The tag of a keyframe.
+     */
+    static final long KEYFRAME_TAG = 1;
+
+    /**
+     * The tag after the last record.
+     */
+    static final long END_TAG = 3;
+
+    /**
+     * The number of bytes of the trailer at the end of a trajectory.
+     */
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Not instantiable.
+     */
+    private TrajectoryFormat() {
+    }
+
+    /**
+     * Maps a signed value to an unsigned one, so values close to 0 get
+     * small unsigned values.
+     *
+     * @param value the signed value
+     * @return the zig-zag encoded value
+     */
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Reverses the zig-zag encoding.
+     *
+     * @param value the zig-zag encoded value
+     * @return the signed value
+     */
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Writes an unsigned value with 7 bits per byte.
+     *
+     * @param out   the output to write to
+     * @param value the unsigned value
+     * @return the number of written bytes
+     * @throws IOException if the output can not be written
+     */
+    static int writeVarLong(OutputStream out, long value) throws IOException {
+        int bytes = 1;
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+            bytes++;
+        }
+        out.write((int) value);
+        return bytes;
+    }
+
+    /**
+     * Reads an unsigned value with 7 bits per byte.
+     *
+     * @param in the input to read from
+     * @return the unsigned value
+     * @throws IOException if the input can not be read or ends too early
+     */
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int read = in.read();
+            if (read < 0) {
+                throw new EOFException("The trajectory ends too early");
+            }
+            value |= (long) (read & 0x7F) << shift;
+            if ((read & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("The trajectory contains an invalid number");
+    }
+}
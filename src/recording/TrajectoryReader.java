@@ -0,0 +1,196 @@
+package recording;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A TrajectoryReader decodes the records of a trajectory one after another.
+ * The decoded position is kept in the TrajectoryReader, so decoding does not
+ * create an Object per record.
+ *
+ * @see TrajectoryWriter
+ * @see TrajectoryFile#readerAt(long)
+ */
+public class TrajectoryReader implements Closeable {
+
+    /**
+     * The input the trajectory is read from.
+     */
+    private final InputStream in;
+
+    /**
+     * The size of a quantization-step.
+     */
+    private final double precision;
+
+    /**
+     * The index of the next record.
+     */
+    private long nextRecord;
+
+    /**
+     * The quantized X-position of the current record.
+     */
+    private long quantizedX;
+
+    /**
+     * The quantized Y-position of the current record.
+     */
+    private long quantizedY;
+
+    /**
+     * The quantized velocity in X-direction of the current record.
+     */
+    private long velocityX;
+
+    /**
+     * The quantized velocity in Y-direction of the current record.
+     */
+    private long velocityY;
+
+    /**
+     * If the current record is a keyframe.
+     */
+    private boolean keyframe;
+
+    /**
+     * If the end of the records has been reached.
+     */
+    private boolean finished;
+
+    /**
+     * Creates a new TrajectoryReader, which reads the trajectory from the
+     * beginning, including its header.
+     *
+     * @param in the input to read from
+     * @throws IOException if the header can not be read or is invalid
+     */
+    public TrajectoryReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in, 64 * 1024);
+        DataInputStream header = new DataInputStream(this.in);
+        if (header.readInt() != TrajectoryFormat.MAGIC) {
+            throw new IOException("The input is not a trajectory");
+        }
+        byte version = header.readByte();
+        if (version != TrajectoryFormat.VERSION) {
+            throw new IOException("Unsupported trajectory version: "
+                    + version);
+        }
+        precision = header.readDouble();
+        header.readInt();
+    }
+
+    /**
+     * Creates a new TrajectoryReader, which reads from the start of a block.
+     *
+     * @param in          the input, positioned at the start of a block
+     * @param precision   the size of a quantization-step
+     * @param firstRecord the index of the first record of the block
+     */
+    TrajectoryReader(InputStream in, double precision, long firstRecord) {
+        this.in = new BufferedInputStream(in, 64 * 1024);
+        this.precision = precision;
+        nextRecord = firstRecord;
+    }
+
+    /**
+     * Decodes the next record.
+     *
+     * @return false if there are no more records
+     * @throws IOException if the record can not be read
+     */
+    public boolean next() throws IOException {
+        if (finished) {
+            return false;
+        }
+        long tag = TrajectoryFormat.readVarLong(in);
+        if (tag == TrajectoryFormat.END_TAG) {
+            finished = true;
+            return false;
+        }
+        if (tag == TrajectoryFormat.KEYFRAME_TAG) {
+            quantizedX = TrajectoryFormat.unZigZag(
+                    TrajectoryFormat.readVarLong(in));
+            quantizedY = TrajectoryFormat.unZigZag(
+                    TrajectoryFormat.readVarLong(in));
+            velocityX = 0;
+            velocityY = 0;
+            keyframe = true;
+        } else if ((tag & 1) == 0) {
+            velocityX += TrajectoryFormat.unZigZag(tag >>> 1);
+            velocityY += TrajectoryFormat.unZigZag(
+                    TrajectoryFormat.readVarLong(in));
+            quantizedX += velocityX;
+            quantizedY += velocityY;
+            keyframe = false;
+        } else {
+            throw new IOException("The trajectory contains an invalid tag: "
+                    + tag);
+        }
+        nextRecord++;
+        return true;
+    }
+
+    /**
+     * Skips the given number of records.
+     *
+     * @param count the number of records to skip
+     * @return the number of skipped records
+     * @throws IOException if the records can not be read
+     */
+    public long skip(long count) throws IOException {
+        long skipped = 0;
+        while (skipped < count && next()) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    /**
+     * Returns the X-position of the current record.
+     *
+     * @return the X-position of the Ball
+     */
+    public double getX() {
+        return quantizedX * precision;
+    }
+
+    /**
+     * Returns the Y-position of the current record.
+     *
+     * @return the Y-position of the Ball
+     */
+    public double getY() {
+        return quantizedY * precision;
+    }
+
+    /**
+     * Returns if the current record is a keyframe.
+     *
+     * @return if the current record is a keyframe
+     */
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    /**
+     * Returns the index of the current record.
+     *
+     * @return the index of the current record, or -1 before the first one
+     */
+    public long getRecordIndex() {
+        return nextRecord - 1;
+    }
+
+    /**
+     * Closes the input.
+     *
+     * @throws IOException if the input can not be closed
+     */
+    public void close() throws IOException {
+        in.close();
+    }
+}
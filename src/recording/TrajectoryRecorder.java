@@ -0,0 +1,223 @@
+package recording;
+
+import simulation.Simulation;
+import simulation.SlowConsumerPolicy;
+import simulation.StateConsumer;
+import simulation.StateFrame;
+import simulation.StateRingBuffer;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A TrajectoryRecorder writes every published Ball-state of a Simulation into
+ * a TrajectoryWriter. The Ball-states are read through a blocking consumer of
+ * the StateRingBuffer and encoded and written on the own Thread of the
+ * TrajectoryRecorder, so the physics-Thread never waits for the I/O. It only
+ * waits, if the StateRingBuffer is full, so the Simulation should have a
+ * StateRingBuffer that can hold the Ball-states of a slow write, for example
+ * one with RECOMMENDED_STATE_BUFFER_CAPACITY frames.
+ * <p>
+ * Positions after a wall-hit, which reverses a speed-component, and after
+ * the Ball started or stopped to rest are written as keyframes, all others as
+ * free-flight records. The first failure of the TrajectoryWriter is
+ * remembered and the recording stops.
+ *
+ * @see Simulation#getStateBuffer()
+ * @see SlowConsumerPolicy#BLOCK
+ */
+public class TrajectoryRecorder {
+
+    /**
+     * The number of frames a StateRingBuffer should hold, so it can take
+     * the Ball-states of several seconds while a write is slow.
+     */
+    public static final int RECOMMENDED_STATE_BUFFER_CAPACITY = 1024;
+
+    /**
+     * The milliseconds the recording-Thread waits, when there is no new
+     * Ball-state.
+     */
+    private static final long POLL_INTERVAL = 5;
+
+    /**
+     * The StateRingBuffer the Ball-states are read from.
+     */
+    private final StateRingBuffer stateBuffer;
+
+    /**
+     * The TrajectoryWriter the positions are written to.
+     */
+    private final TrajectoryWriter writer;
+
+    /**
+     * The reused copy of a Ball-state.
+     */
+    private final StateFrame frame;
+
+    /**
+     * The blocking consumer of the StateRingBuffer, or null if the recording
+     * has not been started.
+     */
+    private StateConsumer consumer;
+
+    /**
+     * The Thread that encodes and writes the Ball-states.
+     */
+    private Thread recording;
+
+    /**
+     * Stops the recording-Thread, when set to false.
+     */
+    private volatile boolean recordingIsActive;
+
+    /**
+     * If the previous Ball-state has been written. Only used by the
+     * recording-Thread.
+     */
+    private boolean hasPrevious;
+
+    /**
+     * The speed in X-direction of the previous Ball-state.
+     */
+    private double previousSpeedX;
+
+    /**
+     * The speed in Y-direction of the previous Ball-state.
+     */
+    private double previousSpeedY;
+
+    /**
+     * If the Ball of the previous Ball-state was inactive.
+     */
+    private boolean previousInactive;
+
+    /**
+     * The first failure of the TrajectoryWriter, or null.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Creates a new TrajectoryRecorder for the Ball-states of the given
+     * Simulation.
+     *
+     * @param simulation the Simulation to record
+     * @param writer     the TrajectoryWriter for the positions
+     */
+    public TrajectoryRecorder(Simulation simulation, TrajectoryWriter writer) {
+        this.writer = writer;
+        stateBuffer = simulation.getStateBuffer();
+        frame = new StateFrame();
+    }
+
+    /**
+     * Starts the recording-Thread. All Ball-states published from now on are
+     * written. Does nothing if the recording has already been started.
+     */
+    public synchronized void start() {
+        if (recording != null) {
+            return;
+        }
+        consumer = stateBuffer.createConsumer(SlowConsumerPolicy.BLOCK);
+        recordingIsActive = true;
+        recording = new Thread() {
+            public void run() {
+                record();
+            }
+        };
+        recording.setName("trajectory-recorder");
+        recording.setDaemon(true);
+        recording.start();
+    }
+
+    /**
+     * Writes the published Ball-states until the recording is stopped or the
+     * TrajectoryWriter fails. Afterwards the consumer is removed, so the
+     * physics-Thread does not wait for it any longer.
+     */
+    private void record() {
+        try {
+            while (recordingIsActive && writeAvailable()) {
+                LockSupport.parkNanos(POLL_INTERVAL * 1_000_000);
+            }
+            writeAvailable();
+        } finally {
+            stateBuffer.removeConsumer(consumer);
+        }
+    }
+
+    /**
+     * Writes all Ball-states, which have been published since the last call.
+     *
+     * @return false if the TrajectoryWriter has failed
+     */
+    private boolean writeAvailable() {
+        if (failure != null) {
+            return false;
+        }
+        try {
+            while (consumer.drain(frame, 1) == 1) {
+                write();
+            }
+            return true;
+        } catch (IOException exception) {
+            failure = exception;
+            return false;
+        }
+    }
+
+    /**
+     * Writes the copied Ball-state, as a keyframe if a speed-component has
+     * been reversed or the Ball started or stopped to rest.
+     *
+     * @throws IOException if the TrajectoryWriter fails
+     */
+    private void write() throws IOException {
+        double speedX = frame.getSpeedX();
+        double speedY = frame.getSpeedY();
+        boolean inactive = frame.isInactive();
+        if (!hasPrevious || inactive != previousInactive
+                || speedX * previousSpeedX < 0
+                || speedY * previousSpeedY < 0) {
+            writer.appendKeyframe(frame.getX(), frame.getY());
+        } else {
+            writer.append(frame.getX(), frame.getY());
+        }
+        hasPrevious = true;
+        previousSpeedX = speedX;
+        previousSpeedY = speedY;
+        previousInactive = inactive;
+    }
+
+    /**
+     * Stops the recording-Thread after it has written the Ball-states, which
+     * have already been published. Does nothing if the recording has not
+     * been started.
+     */
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            recordingIsActive = false;
+            thread = recording;
+            recording = null;
+        }
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the first failure of the TrajectoryWriter.
+     *
+     * @return the failure, or null if all positions have been written
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+}
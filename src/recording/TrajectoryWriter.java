@@ -0,0 +1,222 @@
+package recording;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A TrajectoryWriter encodes the positions of a Ball into the compact
+ * trajectory format while they are recorded. Every position is a record.
+ * The records are grouped into blocks of a fixed number of records, which
+ * all start with a keyframe, so a TrajectoryFile can start decoding at every
+ * block. The block-index is written when the TrajectoryWriter is closed.
+ *
+ * @see TrajectoryFormat
+ * @see TrajectoryReader
+ */
+public class TrajectoryWriter implements Closeable {
+
+    /**
+     * The output the trajectory is written to.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * The size of a quantization-step.
+     */
+    private final double precision;
+
+    /**
+     * The number of records per block.
+     */
+    private final int recordsPerBlock;
+
+    /**
+     * The byte-offsets of the blocks.
+     */
+    private long[] blockOffsets;
+
+    /**
+     * The number of written records.
+     */
+    private long records;
+
+    /**
+     * The number of written bytes.
+     */
+    private long bytesWritten;
+
+    /**
+     * The quantized X-position of the previous record.
+     */
+    private long previousX;
+
+    /**
+     * The quantized Y-position of the previous record.
+     */
+    private long previousY;
+
+    /**
+     * The quantized velocity in X-direction of the previous record.
+     */
+    private long velocityX;
+
+    /**
+     * The quantized velocity in Y-direction of the previous record.
+     */
+    private long velocityY;
+
+    /**
+     * If the TrajectoryWriter has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Creates a new TrajectoryWriter and writes the header.
+     *
+     * @param out             the output to write to
+     * @param precision       the size of a quantization-step
+     * @param recordsPerBlock the number of records per block
+     * @throws IOException if the header can not be written
+     */
+    public TrajectoryWriter(OutputStream out, double precision,
+                            int recordsPerBlock) throws IOException {
+        if (!(precision > 0) || recordsPerBlock < 1) {
+            throw new IllegalArgumentException(
+                    "The precision and the block-size have to be positive");
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(out,
+                64 * 1024));
+        this.precision = precision;
+        this.recordsPerBlock = recordsPerBlock;
+        blockOffsets = new long[16];
+        this.out.writeInt(TrajectoryFormat.MAGIC);
+        this.out.writeByte(TrajectoryFormat.VERSION);
+        this.out.writeDouble(precision);
+        this.out.writeInt(recordsPerBlock);
+        bytesWritten = Integer.BYTES + 1 + Double.BYTES + Integer.BYTES;
+    }
+
+    /**
+     * Creates a new TrajectoryWriter with a precision of 1/1024 units and
+     * blocks of 4096 records.
+     *
+     * @param out the output to write to
+     * @throws IOException if the header can not be written
+     */
+    public TrajectoryWriter(OutputStream out) throws IOException {
+        this(out, 1.0 / 1024, 4096);
+    }
+
+    /**
+     * Appends a free-flight position. A keyframe is written instead if a
+     * new block starts.
+     *
+     * @param x the X-position of the Ball
+     * @param y the Y-position of the Ball
+     * @throws IOException if the record can not be written
+     */
+    public void append(double x, double y) throws IOException {
+        if (closed) {
+            throw new IOException("The trajectory has been closed");
+        }
+        if (records % recordsPerBlock == 0) {
+            appendKeyframe(x, y);
+            return;
+        }
+        long quantizedX = Math.round(x / precision);
+        long quantizedY = Math.round(y / precision);
+        long newVelocityX = quantizedX - previousX;
+        long newVelocityY = quantizedY - previousY;
+        bytesWritten += TrajectoryFormat.writeVarLong(out,
+                TrajectoryFormat.zigZag(newVelocityX - velocityX) << 1);
+        bytesWritten += TrajectoryFormat.writeVarLong(out,
+                TrajectoryFormat.zigZag(newVelocityY - velocityY));
+        previousX = quantizedX;
+        previousY = quantizedY;
+        velocityX = newVelocityX;
+        velocityY = newVelocityY;
+        records++;
+    }
+
+    /**
+     * Appends a position as a keyframe. Should be used for collisions and
+     * rest events, where the Ball changes its direction.
+     *
+     * @param x the X-position of the Ball
+     * @param y the Y-position of the Ball
+     * @throws IOException if the record can not be written
+     */
+    public void appendKeyframe(double x, double y) throws IOException {
+        if (closed) {
+            throw new IOException("The trajectory has been closed");
+        }
+        if (records % recordsPerBlock == 0) {
+            int block = (int) (records / recordsPerBlock);
+            if (block == blockOffsets.length) {
+                blockOffsets = Arrays.copyOf(blockOffsets, block * 2);
+            }
+            blockOffsets[block] = bytesWritten;
+        }
+        previousX = Math.round(x / precision);
+        previousY = Math.round(y / precision);
+        velocityX = 0;
+        velocityY = 0;
+        bytesWritten += TrajectoryFormat.writeVarLong(out,
+                TrajectoryFormat.KEYFRAME_TAG);
+        bytesWritten += TrajectoryFormat.writeVarLong(out,
+                TrajectoryFormat.zigZag(previousX));
+        bytesWritten += TrajectoryFormat.writeVarLong(out,
+                TrajectoryFormat.zigZag(previousY));
+        records++;
+    }
+
+    /**
+     * Returns the number of written records.
+     *
+     * @return the number of records
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the number of written bytes
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes the end of the records and the block-index and closes the
+     * output. Does nothing if the TrajectoryWriter has already been closed.
+     *
+     * @throws IOException if the output can not be written or closed
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        bytesWritten += TrajectoryFormat.writeVarLong(out,
+                TrajectoryFormat.END_TAG);
+        long footerOffset = bytesWritten;
+        int blocks = (int) ((records + recordsPerBlock - 1)
+                / recordsPerBlock);
+        out.writeLong(records);
+        out.writeInt(blocks);
+        for (int i = 0; i < blocks; i++) {
+            out.writeLong(blockOffsets[i]);
+        }
+        out.writeLong(footerOffset);
+        out.writeInt(TrajectoryFormat.MAGIC);
+        bytesWritten += Long.BYTES + Integer.BYTES + (long) blocks * Long.BYTES
+                + TrajectoryFormat.TRAILER_BYTES;
+        out.close();
+    }
+}
@@ -0,0 +1,69 @@
+package server;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * A BufferPool hands out direct ByteBuffers of a fixed size and takes them
+ * back after they have been written, so the StateStreamServer does not have
+ * to allocate a new direct ByteBuffer for every frame. A BufferPool must only
+ * be used by a single Thread.
+ *
+ * @see StateStreamServer
+ */
+class BufferPool {
+
+    /**
+     * The capacity of every ByteBuffer of this BufferPool.
+     */
+    private final int bufferSize;
+
+    /**
+     * The maximal number of ByteBuffers kept for reuse.
+     */
+    private final int maxPooled;
+
+    /**
+     * The ByteBuffers that are ready for reuse.
+     */
+    private final ArrayDeque<ByteBuffer> buffers;
+
+    /**
+     * Creates a new empty BufferPool.
+     *
+     * @param bufferSize the capacity of every ByteBuffer
+     * @param maxPooled  the maximal number of ByteBuffers kept for reuse
+     */
+    BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        buffers = new ArrayDeque<>();
+    }
+
+    /**
+     * Returns a cleared ByteBuffer. A new direct ByteBuffer is allocated if
+     * there is no ByteBuffer to reuse.
+     *
+     * @return a cleared ByteBuffer
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        return buffer;
+    }
+
+    /**
+     * Takes a ByteBuffer back for reuse. The ByteBuffer is dropped if the
+     * BufferPool is already full.
+     *
+     * @param buffer the ByteBuffer that is not used any longer
+     */
+    void release(ByteBuffer buffer) {
+        if (buffers.size() < maxPooled) {
+            buffer.clear();
+            buffers.push(buffer);
+        }
+    }
+}
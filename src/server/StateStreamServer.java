@@ -0,0 +1,539 @@
+package server;
+
+import simulation.Simulation;
+import simulation.SlowConsumerPolicy;
+import simulation.StateConsumer;
+import simulation.StateFrame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A StateStreamServer broadcasts the Ball-states of many Simulations to
+ * local clients, for example dashboards on the same machine. It listens on a
+ * TCP-port of the loopback-address or on a Unix domain socket and serves all
+ * clients from a single Thread with non-blocking I/O.
+ * <p>
+ * The Ball-states are read through conflating consumers of the
+ * StateRingBuffers, so the physics-Threads never wait for the server. A
+ * client that can not keep up simply misses frames: as long as a frame is
+ * still being written to a client, no new frame is built for it.
+ * <p>
+ * A client subscribes to boxes by sending an Integer-value with the number
+ * of box-ids, followed by the box-ids. The number -1 subscribes to all boxes,
+ * which is also the default. Every frame sent to a client starts with a
+ * header, followed by one entry per box:
+ * <pre>
+ * header: int  bodyLength, byte type (0 keyframe, 1 delta),
+ *         int  entryCount, long frameNumber
+ * entry:  int  boxId, float x, float y, byte inactive
+ * </pre>
+ * A keyframe contains all subscribed boxes and is sent after every new
+ * subscription. A delta frame only contains the boxes whose Ball-state has
+ * changed since it has been sent last. All numbers are big-endian.
+ * <p>
+ * A failing client is disconnected without affecting the others. If
+ * accepting a new client fails, for example because no more files can be
+ * opened, accepting is paused until the next broadcast. Only a failure of the
+ * Selector stops the server-Thread, which is then returned by getFailure.
+ *
+ * @see Simulation#getStateBuffer()
+ */
+public class StateStreamServer implements Closeable {
+
+    /**
+     * The type of a frame with all subscribed boxes.
+     */
+    public static final byte KEYFRAME = 0;
+
+    /**
+     * The type of a frame with the changed boxes only.
+     */
+    public static final byte DELTA_FRAME = 1;
+
+    /**
+     * The number of bytes of a frame-header.
+     */
+    public static final int HEADER_BYTES = 17;
+
+    /**
+     * The number of bytes of a frame-entry.
+     */
+    public static final int ENTRY_BYTES = 13;
+
+    /**
+     * The channel, which accepts new clients.
+     */
+    private final ServerSocketChannel serverChannel;
+
+    /**
+     * The path of the Unix domain socket, or null if the server uses TCP.
+     */
+    private final Path socketPath;
+
+    /**
+     * The Selector for all channels.
+     */
+    private final Selector selector;
+
+    /**
+     * The SelectionKey of the channel, which accepts new clients.
+     */
+    private final SelectionKey acceptKey;
+
+    /**
+     * The milliseconds between two broadcasts.
+     */
+    private final long broadcastInterval;
+
+    /**
+     * The pool for the ByteBuffers of the frame-bodies.
+     */
+    private final BufferPool bodyPool;
+
+    /**
+     * The pool for the ByteBuffers of the frame-headers.
+     */
+    private final BufferPool headerPool;
+
+    /**
+     * The Simulations, which have been added but not yet been taken over by
+     * the server-Thread.
+     */
+    private final ConcurrentLinkedQueue<Simulation> addedSimulations;
+
+    /**
+     * The consumers for the Ball-states, indexed by the box-id.
+     */
+    private final List<StateConsumer> consumers;
+
+    /**
+     * The reused copy of a Ball-state.
+     */
+    private final StateFrame frame;
+
+    /**
+     * The reused list of the ByteBuffers of the frame being built.
+     */
+    private final List<ByteBuffer> frameBuffers;
+
+    /**
+     * The X-positions of the latest Ball-states, indexed by the box-id.
+     */
+    private float[] latestX;
+
+    /**
+     * The Y-positions of the latest Ball-states, indexed by the box-id.
+     */
+    private float[] latestY;
+
+    /**
+     * The latest Ball-states, indexed by the box-id.
+     */
+    private boolean[] latestInactive;
+
+    /**
+     * The number of the next frame.
+     */
+    private long frameNumber;
+
+    /**
+     * The number of the next box-id.
+     */
+    private int nextBoxId;
+
+    /**
+     * The Thread that serves the clients.
+     */
+    private Thread serverThread;
+
+    /**
+     * Stops the server-Thread, when set to false.
+     */
+    private volatile boolean serverIsActive;
+
+    /**
+     * The failure that has stopped the server-Thread, or null.
+     */
+    private volatile Exception failure;
+
+    /**
+     * Creates a new StateStreamServer, which listens on the given address.
+     *
+     * @param address           the address to listen on
+     * @param family            the protocol-family of the address
+     * @param socketPath        the path of the Unix domain socket, or null
+     * @param broadcastInterval the milliseconds between two broadcasts
+     * @throws IOException if the server can not listen on the address
+     */
+    private StateStreamServer(SocketAddress address,
+                              StandardProtocolFamily family, Path socketPath,
+                              long broadcastInterval) throws IOException {
+        this.socketPath = socketPath;
+        this.broadcastInterval = broadcastInterval;
+        serverChannel = ServerSocketChannel.open(family);
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        acceptKey = serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        bodyPool = new BufferPool(64 * 1024, 256);
+        headerPool = new BufferPool(HEADER_BYTES, 256);
+        addedSimulations = new ConcurrentLinkedQueue<>();
+        consumers = new ArrayList<>();
+        frame = new StateFrame();
+        frameBuffers = new ArrayList<>();
+        latestX = new float[16];
+        latestY = new float[16];
+        latestInactive = new boolean[16];
+    }
+
+    /**
+     * Creates a new StateStreamServer, which listens on the given TCP-port of
+     * the loopback-address.
+     *
+     * @param port              the port, or 0 for any free port
+     * @param broadcastInterval the milliseconds between two broadcasts
+     * @return the new StateStreamServer
+     * @throws IOException if the server can not listen on the port
+     */
+    public static StateStreamServer onLoopbackPort(int port,
+                                                   long broadcastInterval)
+            throws IOException {
+        return new StateStreamServer(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port),
+                StandardProtocolFamily.INET, null, broadcastInterval);
+    }
+
+    /**
+     * Creates a new StateStreamServer, which listens on a Unix domain socket
+     * at the given path. The socket-file is deleted when the server is
+     * closed.
+     *
+     * @param path              the path of the socket-file
+     * @param broadcastInterval the milliseconds between two broadcasts
+     * @return the new StateStreamServer
+     * @throws IOException if the server can not listen on the path
+     */
+    public static StateStreamServer onUnixSocket(Path path,
+                                                 long broadcastInterval)
+            throws IOException {
+        return new StateStreamServer(UnixDomainSocketAddress.of(path),
+                StandardProtocolFamily.UNIX, path, broadcastInterval);
+    }
+
+    /**
+     * Returns the address the server listens on.
+     *
+     * @return the local address
+     * @throws IOException if the address can not be determined
+     */
+    public SocketAddress getAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Returns the failure that has stopped the server-Thread.
+     *
+     * @return the failure, or null if the server-Thread has not failed
+     */
+    public Exception getFailure() {
+        return failure;
+    }
+
+    /**
+     * Adds a Simulation, whose Ball-state is broadcast from now on. The
+     * box-ids are assigned in the order the Simulations are added, starting
+     * with 0.
+     *
+     * @param simulation the Simulation to broadcast
+     * @return the box-id of the Simulation
+     */
+    public synchronized int addSimulation(Simulation simulation) {
+        addedSimulations.add(simulation);
+        return nextBoxId++;
+    }
+
+    /**
+     * Starts the server-Thread. Does nothing if it has already been started.
+     */
+    public synchronized void start() {
+        if (serverThread == null) {
+            serverIsActive = true;
+            serverThread = new Thread() {
+                public void run() {
+                    serve();
+                }
+            };
+            serverThread.setName("state-stream-server");
+            serverThread.setDaemon(true);
+            serverThread.start();
+        }
+    }
+
+    /**
+     * Serves the clients until the server is closed or the Selector fails.
+     * Broadcasts a frame after every broadcast-interval.
+     */
+    private void serve() {
+        long nextBroadcast = System.currentTimeMillis();
+        while (serverIsActive) {
+            try {
+                long timeout = nextBroadcast - System.currentTimeMillis();
+                if (timeout > 0) {
+                    selector.select(timeout);
+                } else {
+                    selector.selectNow();
+                }
+                handleSelectedKeys();
+                if (System.currentTimeMillis() >= nextBroadcast) {
+                    broadcast();
+                    nextBroadcast += broadcastInterval;
+                    nextBroadcast = Math.max(nextBroadcast,
+                            System.currentTimeMillis());
+                }
+            } catch (IOException | RuntimeException exception) {
+                failure = exception;
+                serverIsActive = false;
+            }
+        }
+    }
+
+    /**
+     * Accepts new clients, reads subscriptions and continues pending writes.
+     * A failing client is disconnected.
+     */
+    private void handleSelectedKeys() {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            StreamClient client = (StreamClient) key.attachment();
+            try {
+                if (key.isReadable() && !client.readSubscriptions()) {
+                    disconnect(key);
+                    continue;
+                }
+                if (key.isValid() && key.isWritable()
+                        && client.writePending()) {
+                    releaseFrame(client);
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            } catch (IOException | RuntimeException exception) {
+                disconnect(key);
+            }
+        }
+    }
+
+    /**
+     * Accepts a new client. If that fails, accepting is paused until the
+     * next broadcast, so the server-Thread does not spin on a failure that
+     * lasts, and the new channel is closed.
+     */
+    private void accept() {
+        SocketChannel channel = null;
+        try {
+            channel = serverChannel.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ,
+                        new StreamClient(channel));
+            }
+        } catch (IOException | RuntimeException exception) {
+            acceptKey.interestOps(0);
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // the connection is gone anyway
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the latest Ball-state of every Simulation and sends a frame to
+     * every client, that is not busy with an older frame. Resumes accepting
+     * new clients, if it has been paused.
+     */
+    private void broadcast() {
+        if (acceptKey.isValid() && acceptKey.interestOps() == 0) {
+            acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+        Simulation added = addedSimulations.poll();
+        while (added != null) {
+            consumers.add(added.getStateBuffer()
+                    .createConsumer(SlowConsumerPolicy.CONFLATE));
+            added = addedSimulations.poll();
+        }
+        int boxCount = consumers.size();
+        if (latestX.length < boxCount) {
+            int length = Math.max(boxCount, latestX.length * 2);
+            latestX = Arrays.copyOf(latestX, length);
+            latestY = Arrays.copyOf(latestY, length);
+            latestInactive = Arrays.copyOf(latestInactive, length);
+        }
+        for (int boxId = 0; boxId < boxCount; boxId++) {
+            if (consumers.get(boxId).readLatest(frame)) {
+                latestX[boxId] = (float) frame.getX();
+                latestY[boxId] = (float) frame.getY();
+                latestInactive[boxId] = frame.isInactive();
+            }
+        }
+
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid() || !(key.attachment() instanceof StreamClient)) {
+                continue;
+            }
+            StreamClient client = (StreamClient) key.attachment();
+            if (client.hasPendingFrame()) {
+                continue;
+            }
+            try {
+                if (!client.write(buildFrame(client, boxCount))) {
+                    key.interestOps(SelectionKey.OP_READ
+                            | SelectionKey.OP_WRITE);
+                } else {
+                    releaseFrame(client);
+                }
+            } catch (IOException | RuntimeException exception) {
+                disconnect(key);
+            }
+        }
+        frameNumber++;
+    }
+
+    /**
+     * Builds the next frame for a client from pooled ByteBuffers. The first
+     * ByteBuffer is the header, the others contain the entries.
+     *
+     * @param client   the client
+     * @param boxCount the number of boxes
+     * @return the ByteBuffers of the frame, ready to be written
+     */
+    private ByteBuffer[] buildFrame(StreamClient client, int boxCount) {
+        boolean keyframe = client.isKeyframeNeeded();
+        List<ByteBuffer> buffers = frameBuffers;
+        buffers.clear();
+        buffers.add(headerPool.acquire());
+        ByteBuffer body = bodyPool.acquire();
+        buffers.add(body);
+        int entryCount = 0;
+        for (int boxId = 0; boxId < boxCount; boxId++) {
+            if (!client.isSubscribed(boxId)
+                    || !client.update(boxId, latestX[boxId], latestY[boxId],
+                    latestInactive[boxId])) {
+                continue;
+            }
+            if (body.remaining() < ENTRY_BYTES) {
+                body = bodyPool.acquire();
+                buffers.add(body);
+            }
+            body.putInt(boxId);
+            body.putFloat(latestX[boxId]);
+            body.putFloat(latestY[boxId]);
+            body.put((byte) (latestInactive[boxId] ? 1 : 0));
+            entryCount++;
+        }
+        client.keyframeSent();
+
+        ByteBuffer header = buffers.get(0);
+        header.putInt(entryCount * ENTRY_BYTES);
+        header.put(keyframe ? KEYFRAME : DELTA_FRAME);
+        header.putInt(entryCount);
+        header.putLong(frameNumber);
+        ByteBuffer[] built = buffers.toArray(new ByteBuffer[0]);
+        buffers.clear();
+        for (ByteBuffer buffer : built) {
+            buffer.flip();
+        }
+        return built;
+    }
+
+    /**
+     * Returns the ByteBuffers of the written frame of a client to the pools.
+     *
+     * @param client the client
+     */
+    private void releaseFrame(StreamClient client) {
+        ByteBuffer[] written = client.takePending();
+        if (written == null) {
+            return;
+        }
+        headerPool.release(written[0]);
+        for (int i = 1; i < written.length; i++) {
+            bodyPool.release(written[i]);
+        }
+    }
+
+    /**
+     * Closes the connection of a client. The pooled ByteBuffers of a frame
+     * that has not been written completely are returned to their pools.
+     *
+     * @param key the SelectionKey of the client
+     */
+    private void disconnect(SelectionKey key) {
+        if (key.attachment() instanceof StreamClient) {
+            releaseFrame((StreamClient) key.attachment());
+        }
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+            // the connection is gone anyway
+        }
+    }
+
+    /**
+     * Stops the server-Thread and closes all connections. The Simulations
+     * keep running.
+     *
+     * @throws IOException if the server can not be closed
+     */
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            serverIsActive = false;
+            thread = serverThread;
+        }
+        selector.wakeup();
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        serverChannel.close();
+        if (socketPath != null) {
+            Files.deleteIfExists(socketPath);
+        }
+    }
+}
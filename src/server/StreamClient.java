@@ -0,0 +1,226 @@
+package server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A StreamClient holds the state of a single connection of a
+ * StateStreamServer: the boxes the client has subscribed to, the positions
+ * that have been sent to it last and the frame that is still being written.
+ *
+ * @see StateStreamServer
+ */
+class StreamClient {
+
+    /**
+     * The largest number of box-ids a single subscription may contain.
+     */
+    private static final int MAX_SUBSCRIPTION_SIZE = 1 << 20;
+
+    /**
+     * The connection to the client.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The ids of the subscribed boxes, or null if all boxes are subscribed.
+     */
+    private BitSet subscription;
+
+    /**
+     * If the next frame has to contain all subscribed boxes.
+     */
+    private boolean keyframeNeeded;
+
+    /**
+     * The X-positions sent last, indexed by the box-id.
+     */
+    private float[] sentX;
+
+    /**
+     * The Y-positions sent last, indexed by the box-id.
+     */
+    private float[] sentY;
+
+    /**
+     * The Ball-states sent last, indexed by the box-id.
+     */
+    private boolean[] sentInactive;
+
+    /**
+     * The received bytes of an incomplete subscription.
+     */
+    private ByteBuffer input;
+
+    /**
+     * The ByteBuffers of the frame that is still being written.
+     */
+    private ByteBuffer[] pending;
+
+    /**
+     * Creates a new StreamClient for the given connection. The client is
+     * subscribed to all boxes until it sends a subscription.
+     *
+     * @param channel the connection to the client
+     */
+    StreamClient(SocketChannel channel) {
+        this.channel = channel;
+        keyframeNeeded = true;
+        sentX = new float[0];
+        sentY = new float[0];
+        sentInactive = new boolean[0];
+        input = ByteBuffer.allocate(256);
+    }
+
+    /**
+     * Reads the available bytes of the connection and applies every
+     * complete subscription. A subscription consists of an Integer-value
+     * with the number of box-ids, followed by the box-ids. The number -1
+     * subscribes to all boxes.
+     *
+     * @return false if the connection has been closed by the client
+     * @throws IOException if the connection can not be read or the
+     *                     subscription is invalid
+     */
+    boolean readSubscriptions() throws IOException {
+        int read = channel.read(input);
+        input.flip();
+        while (input.remaining() >= Integer.BYTES) {
+            int count = input.getInt(input.position());
+            if (count < -1 || count > MAX_SUBSCRIPTION_SIZE) {
+                throw new IOException("Invalid subscription size: " + count);
+            }
+            int size = Integer.BYTES * (1 + Math.max(count, 0));
+            if (input.remaining() < size) {
+                if (input.capacity() < size) {
+                    input = ByteBuffer.allocate(size).put(input);
+                    input.flip();
+                }
+                break;
+            }
+            input.getInt();
+            if (count == -1) {
+                subscription = null;
+            } else {
+                subscription = new BitSet();
+                for (int i = 0; i < count; i++) {
+                    int boxId = input.getInt();
+                    if (boxId >= 0) {
+                        subscription.set(boxId);
+                    }
+                }
+            }
+            keyframeNeeded = true;
+        }
+        input.compact();
+        return read >= 0;
+    }
+
+    /**
+     * Proofs if the client has subscribed to the given box.
+     *
+     * @param boxId the id of the box
+     * @return if the box is subscribed
+     */
+    boolean isSubscribed(int boxId) {
+        return subscription == null || subscription.get(boxId);
+    }
+
+    /**
+     * Proofs if the state of a box has to be sent to the client, because
+     * the next frame is a keyframe or the state has changed since it has
+     * been sent last. The state is remembered as sent.
+     *
+     * @param boxId    the id of the box
+     * @param x        the X-position of the Ball
+     * @param y        the Y-position of the Ball
+     * @param inactive if the Ball is inactive
+     * @return if the state has to be sent
+     */
+    boolean update(int boxId, float x, float y, boolean inactive) {
+        if (boxId >= sentX.length) {
+            int length = Math.max(boxId + 1, sentX.length * 2);
+            sentX = Arrays.copyOf(sentX, length);
+            sentY = Arrays.copyOf(sentY, length);
+            sentInactive = Arrays.copyOf(sentInactive, length);
+            keyframeNeeded = true;
+        }
+        if (!keyframeNeeded && sentX[boxId] == x && sentY[boxId] == y
+                && sentInactive[boxId] == inactive) {
+            return false;
+        }
+        sentX[boxId] = x;
+        sentY[boxId] = y;
+        sentInactive[boxId] = inactive;
+        return true;
+    }
+
+    /**
+     * Returns if the next frame has to contain all subscribed boxes.
+     *
+     * @return if a keyframe is needed
+     */
+    boolean isKeyframeNeeded() {
+        return keyframeNeeded;
+    }
+
+    /**
+     * Marks that a keyframe has been built.
+     */
+    void keyframeSent() {
+        keyframeNeeded = false;
+    }
+
+    /**
+     * Returns if a frame is still being written to the client.
+     *
+     * @return if a frame is pending
+     */
+    boolean hasPendingFrame() {
+        return pending != null;
+    }
+
+    /**
+     * Writes as much of the given frame as possible without blocking.
+     * The rest of the frame stays pending.
+     *
+     * @param frame the ByteBuffers of the frame
+     * @return if the whole frame has been written
+     * @throws IOException if the connection can not be written
+     */
+    boolean write(ByteBuffer[] frame) throws IOException {
+        pending = frame;
+        return writePending();
+    }
+
+    /**
+     * Continues writing the pending frame without blocking.
+     *
+     * @return if the whole frame has been written
+     * @throws IOException if the connection can not be written
+     */
+    boolean writePending() throws IOException {
+        if (pending == null) {
+            return true;
+        }
+        channel.write(pending);
+        if (pending[pending.length - 1].hasRemaining()) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the ByteBuffers of the pending frame and forgets them.
+     *
+     * @return the ByteBuffers of the pending frame, or null
+     */
+    ByteBuffer[] takePending() {
+        ByteBuffer[] frame = pending;
+        pending = null;
+        return frame;
+    }
+}
@@ -0,0 +1,109 @@
+package simulation;
+
+/**
+ * The AdaptiveStepReport compares adaptive stepping with unit steps. For a
+ * number of seeded random start-states, a headless MovementSimulator is run
+ * until the Ball comes to rest, once with unit steps and once with adaptive
+ * stepping. The report prints the time both needed and how far the resting
+ * positions, the wall-hits and the times until the rest differ.
+ * <p>
+ * Usage: {@code java simulation.AdaptiveStepReport [runs] [seed]}
+ *
+ * @see MovementSimulator#setAdaptiveStepping(boolean)
+ */
+public class AdaptiveStepReport {
+
+    /**
+     * The milliseconds covered by a single tick. Larger than the refresh-time
+     * of a visible simulation, so adaptive stepping can take large steps.
+     */
+    private static final int REFRESH_TIME = 1000;
+
+    /**
+     * Not instantiable.
+     */
+    private AdaptiveStepReport() {
+    }
+
+    /**
+     * Runs the comparison and prints the report.
+     *
+     * @param args the number of runs and the seed, both optional
+     */
+    public static void main(String[] args) {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+        SimulationRandom random = new SimulationRandom(seed);
+
+        long fixedTime = 0;
+        long adaptiveTime = 0;
+        double maxPositionError = 0;
+        double totalPositionError = 0;
+        int differentWallHits = 0;
+        long maxRestTimeDifference = 0;
+        for (int run = 0; run < runs; run++) {
+            int length = 200 + random.nextInt(4000);
+            int height = 200 + random.nextInt(4000);
+            int radius = 5 + random.nextInt(20);
+            SimulatorCheckpoint start = new SimulatorCheckpoint(length,
+                    height, radius,
+                    radius + random.nextDouble() * (length - 2 * radius),
+                    radius + random.nextDouble() * (height - 2 * radius),
+                    2 * random.nextDouble() - 1, 2 * random.nextDouble() - 1,
+                    REFRESH_TIME, 0, 0);
+
+            long begin = System.nanoTime();
+            RestResult fixed = runUntilRest(start, false);
+            fixedTime += System.nanoTime() - begin;
+            begin = System.nanoTime();
+            RestResult adaptive = runUntilRest(start, true);
+            adaptiveTime += System.nanoTime() - begin;
+
+            double error = Math.hypot(fixed.getRestX() - adaptive.getRestX(),
+                    fixed.getRestY() - adaptive.getRestY());
+            maxPositionError = Math.max(maxPositionError, error);
+            totalPositionError += error;
+            if (fixed.getWallHits() != adaptive.getWallHits()) {
+                differentWallHits++;
+            }
+            maxRestTimeDifference = Math.max(maxRestTimeDifference,
+                    Math.abs(fixed.getRestTime() - adaptive.getRestTime()));
+        }
+
+        System.out.printf("runs:                         %d%n", runs);
+        System.out.printf("unit steps:                   %.1f ms%n",
+                fixedTime / 1e6);
+        System.out.printf("adaptive steps:               %.1f ms%n",
+                adaptiveTime / 1e6);
+        System.out.printf("speed-up:                     %.1fx%n",
+                (double) fixedTime / adaptiveTime);
+        System.out.printf("max resting position error:   %.3g units%n",
+                maxPositionError);
+        System.out.printf("mean resting position error:  %.3g units%n",
+                totalPositionError / runs);
+        System.out.printf("runs with different wall-hits: %d%n",
+                differentWallHits);
+        System.out.printf("max rest-time difference:     %d ms%n",
+                maxRestTimeDifference);
+    }
+
+    /**
+     * Runs a headless MovementSimulator from the given state until the Ball
+     * comes to rest.
+     *
+     * @param start    the start-state
+     * @param adaptive if adaptive stepping is used
+     * @return where and when the Ball came to rest
+     */
+    private static RestResult runUntilRest(SimulatorCheckpoint start,
+                                           boolean adaptive) {
+        MovementSimulator simulator = new MovementSimulator(start);
+        simulator.setAdaptiveStepping(adaptive);
+        long restTime = 0;
+        while (!simulator.isBallInactive()) {
+            restTime += simulator.tick();
+        }
+        return new RestResult(simulator.getBallX(), simulator.getBallY(),
+                simulator.getWallHits(), restTime);
+    }
+}
@@ -1,10 +1,10 @@
-package gui;
+package simulation;
 
 /**
  * A BallStateObserver gets a notification when the state of a Ball has been
  * changed.
  *
- * @see simulation.Ball
+ * @see Ball
  */
 public interface BallStateObserver {
 
@@ -0,0 +1,70 @@
+package simulation;
+
+/**
+ * The BatchScalingReport measures how a BatchSimulator scales with the
+ * number of worker-Threads. The same Boxes are advanced with 1, 2, 4, ...
+ * workers up to the number of available processors, and the aggregate
+ * ticks per second and the tail latencies of the ticks are printed.
+ * <p>
+ * Usage: {@code java simulation.BatchScalingReport [boxes] [ticks]}
+ *
+ * @see BatchSimulator
+ */
+public class BatchScalingReport {
+
+    /**
+     * The simulated milliseconds per tick.
+     */
+    private static final int MILLIS_PER_TICK = 10;
+
+    /**
+     * The number of Boxes a worker takes at once.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * Not instantiable.
+     */
+    private BatchScalingReport() {
+    }
+
+    /**
+     * Runs the measurement and prints the report.
+     *
+     * @param args the number of Boxes and ticks, both optional
+     */
+    public static void main(String[] args) {
+        int boxes = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d boxes, %d ms per tick, %d processors%n",
+                boxes, MILLIS_PER_TICK, processors);
+        System.out.printf("%8s %12s %16s %10s %10s %10s%n", "workers",
+                "ticks/s", "box-ms/s", "p50 ms", "p99 ms", "p99.9 ms");
+        int workers = 1;
+        while (true) {
+            try (BatchSimulator simulator = new BatchSimulator(boxes, 640,
+                    480, 20, 1, MILLIS_PER_TICK, workers, CHUNK_SIZE)) {
+                for (int i = 0; i < ticks / 5; i++) {
+                    simulator.tick();
+                }
+                simulator.resetMetrics();
+                for (int i = 0; i < ticks; i++) {
+                    simulator.tick();
+                }
+                double ticksPerSecond = simulator.getTicksPerSecond();
+                System.out.printf("%8d %12.1f %16.3e %10.3f %10.3f %10.3f%n",
+                        workers, ticksPerSecond,
+                        ticksPerSecond * boxes * MILLIS_PER_TICK,
+                        simulator.getTickLatency(50) / 1e6,
+                        simulator.getTickLatency(99) / 1e6,
+                        simulator.getTickLatency(99.9) / 1e6);
+            }
+            if (workers >= processors) {
+                break;
+            }
+            workers = Math.min(processors, workers * 2);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package simulation;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A BatchSimulator advances many Boxes in lockstep: every global tick moves
+ * all Boxes by the same number of simulated milliseconds. The state of all
+ * Boxes is kept in primitive arrays instead of Box- and Ball-Objects. A tick
+ * is split into chunks of Boxes, which a fixed pool of worker-Threads takes
+ * one after another, and ends at a barrier that all workers have to reach.
+ * <p>
+ * Every Box follows the rules of a MovementSimulator with unit steps:
+ * collisions invert and slow the speed, rolling friction slows the Ball and
+ * a resting Ball gets a new random speed after 1 - 10 simulated seconds.
+ * Box i starts exactly like a MovementSimulator with the seed
+ * {@code seed + i}, but its trajectory soon differs, because the steps are
+ * simplified. A collision does not shorten the tick, so all Boxes always
+ * stay at the same simulated time. A Ball comes to rest in the millisecond
+ * its speed falls below the threshold, before the friction is applied,
+ * while a MovementSimulator only checks for rest at the end of a tick and
+ * applies the friction until then. A Ball that crosses a wall is put onto
+ * the wall, while a MovementSimulator keeps the old position, if the new
+ * one is outside the Box. So a BatchSimulator shows the behaviour of many
+ * Boxes, but does not reproduce single MovementSimulators.
+ *
+ * @see MovementSimulator
+ */
+public class BatchSimulator implements Closeable {
+
+    /**
+     * The magnitude the speed of a rolling Ball loses per millisecond.
+     */
+    private static final double ROLLING_FRICTION = 0.0001;
+
+    /**
+     * The number of tick-latencies that are kept.
+     */
+    private static final int LATENCY_HISTORY = 1 << 16;
+
+    /**
+     * The number of Boxes.
+     */
+    private final int boxCount;
+
+    /**
+     * The length of every Box.
+     */
+    private final int length;
+
+    /**
+     * The height of every Box.
+     */
+    private final int height;
+
+    /**
+     * The radius of every Ball.
+     */
+    private final int radius;
+
+    /**
+     * The simulated milliseconds per tick.
+     */
+    private final int millisPerTick;
+
+    /**
+     * The X-positions of the Balls.
+     */
+    private final double[] positionsX;
+
+    /**
+     * The Y-positions of the Balls.
+     */
+    private final double[] positionsY;
+
+    /**
+     * The speeds of the Balls in X-direction.
+     */
+    private final double[] speedsX;
+
+    /**
+     * The speeds of the Balls in Y-direction.
+     */
+    private final double[] speedsY;
+
+    /**
+     * The simulated milliseconds until a resting Ball gets a new speed, or
+     * 0 if the Ball is moving.
+     */
+    private final long[] restingTimes;
+
+    /**
+     * The states of the random generators of the Boxes.
+     */
+    private final long[] randomStates;
+
+    /**
+     * The number of Boxes per chunk.
+     */
+    private final int chunkSize;
+
+    /**
+     * The number of chunks.
+     */
+    private final int chunkCount;
+
+    /**
+     * The index of the next chunk of the current tick.
+     */
+    private final AtomicInteger nextChunk;
+
+    /**
+     * The barrier, which starts a tick.
+     */
+    private final CyclicBarrier tickStart;
+
+    /**
+     * The barrier, which ends a tick.
+     */
+    private final CyclicBarrier tickEnd;
+
+    /**
+     * The worker-Threads.
+     */
+    private final Thread[] workers;
+
+    /**
+     * Stops the worker-Threads, when set to false.
+     */
+    private volatile boolean running;
+
+    /**
+     * The number of finished ticks.
+     */
+    private long ticks;
+
+    /**
+     * The nanoseconds spent in all ticks.
+     */
+    private long tickTime;
+
+    /**
+     * The nanoseconds of the last ticks, used as a ring.
+     */
+    private final long[] latencies;
+
+    /**
+     * Creates a new BatchSimulator and starts its worker-Threads.
+     *
+     * @param boxCount      the number of Boxes
+     * @param length        the length of every Box
+     * @param height        the height of every Box
+     * @param radius        the radius of every Ball
+     * @param seed          the seed of the first Box
+     * @param millisPerTick the simulated milliseconds per tick
+     * @param workerCount   the number of worker-Threads
+     * @param chunkSize     the number of Boxes a worker takes at once
+     */
+    public BatchSimulator(int boxCount, int length, int height, int radius,
+                          long seed, int millisPerTick, int workerCount,
+                          int chunkSize) {
+        if (boxCount < 1 || millisPerTick < 1 || workerCount < 1
+                || chunkSize < 1) {
+            throw new IllegalArgumentException(
+                    "The sizes of the batch have to be positive");
+        }
+        this.boxCount = boxCount;
+        this.length = length;
+        this.height = height;
+        this.radius = radius;
+        this.millisPerTick = millisPerTick;
+        this.chunkSize = chunkSize;
+        chunkCount = (boxCount + chunkSize - 1) / chunkSize;
+
+        positionsX = new double[boxCount];
+        positionsY = new double[boxCount];
+        speedsX = new double[boxCount];
+        speedsY = new double[boxCount];
+        restingTimes = new long[boxCount];
+        randomStates = new long[boxCount];
+        SimulationRandom random = new SimulationRandom(0);
+        for (int i = 0; i < boxCount; i++) {
+            SimulationRandom placement = SimulationRandom.forStream(seed + i,
+                    0);
+            positionsX[i] = placement.nextInt(length - 2 * radius) + radius;
+            positionsY[i] = placement.nextInt(height - 2 * radius) + radius;
+            random.setState(SimulationRandom.forStream(seed + i, 1)
+                    .getState());
+            launch(i, random);
+            randomStates[i] = random.getState();
+        }
+
+        latencies = new long[LATENCY_HISTORY];
+        nextChunk = new AtomicInteger();
+        tickStart = new CyclicBarrier(workerCount + 1);
+        tickEnd = new CyclicBarrier(workerCount + 1);
+        running = true;
+        workers = new Thread[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            workers[w] = new Thread() {
+                public void run() {
+                    work();
+                }
+            };
+            workers[w].setName("batch-worker-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+    }
+
+    /**
+     * Gives the Ball of a Box a new random speed, like
+     * MovementSimulator does.
+     *
+     * @param box    the index of the Box
+     * @param random the random generator with the state of the Box
+     */
+    private void launch(int box, SimulationRandom random) {
+        boolean positiveX = random.nextBoolean();
+        boolean positiveY = random.nextBoolean();
+        double speedX = random.nextDouble();
+        double speedY = random.nextDouble();
+        speedsX[box] = positiveX ? speedX : -speedX;
+        speedsY[box] = positiveY ? speedY : -speedY;
+        restingTimes[box] = 0;
+    }
+
+    /**
+     * The loop of a worker-Thread: waits for the start of a tick, advances
+     * chunks until there are none left and waits for the end of the tick.
+     */
+    private void work() {
+        SimulationRandom random = new SimulationRandom(0);
+        try {
+            while (true) {
+                tickStart.await();
+                if (!running) {
+                    return;
+                }
+                int chunk = nextChunk.getAndIncrement();
+                while (chunk < chunkCount) {
+                    int end = Math.min(boxCount, (chunk + 1) * chunkSize);
+                    for (int box = chunk * chunkSize; box < end; box++) {
+                        advance(box, random);
+                    }
+                    chunk = nextChunk.getAndIncrement();
+                }
+                tickEnd.await();
+            }
+        } catch (InterruptedException | BrokenBarrierException exception) {
+            running = false;
+        }
+    }
+
+    /**
+     * Advances a single Box by the simulated milliseconds of a tick.
+     *
+     * @param box    the index of the Box
+     * @param random a random generator of the worker, which gets the state
+     *               of the Box
+     */
+    private void advance(int box, SimulationRandom random) {
+        double x = positionsX[box];
+        double y = positionsY[box];
+        double speedX = speedsX[box];
+        double speedY = speedsY[box];
+        long restingTime = restingTimes[box];
+        random.setState(randomStates[box]);
+
+        for (int millisecond = 0; millisecond < millisPerTick;
+             millisecond++) {
+            if (restingTime > 0) {
+                restingTime--;
+                if (restingTime == 0) {
+                    launch(box, random);
+                    speedX = speedsX[box];
+                    speedY = speedsY[box];
+                }
+                continue;
+            }
+
+            boolean collisionOccurred = false;
+            x += speedX;
+            if (x < radius && speedX < -0.0001) {
+                speedX = -speedX * 0.95;
+                collisionOccurred = true;
+                x = radius;
+            } else if (x > length - radius && speedX > 0.0001) {
+                speedX = -speedX * 0.95;
+                collisionOccurred = true;
+                x = length - radius;
+            }
+            y += speedY;
+            if (y < radius && speedY < -0.0001) {
+                speedY = -speedY * 0.95;
+                collisionOccurred = true;
+                y = radius;
+            } else if (y > height - radius && speedY > 0.0001) {
+                speedY = -speedY * 0.95;
+                collisionOccurred = true;
+                y = height - radius;
+            }
+
+            double magnitude = Math.sqrt(speedX * speedX + speedY * speedY);
+            if (magnitude < 0.0001) {
+                restingTime = (random.nextInt(10) + 1) * 1000;
+            } else if (!collisionOccurred) {
+                double newMagnitude = magnitude - ROLLING_FRICTION;
+                speedX = speedX / magnitude * newMagnitude;
+                speedY = speedY / magnitude * newMagnitude;
+            }
+        }
+
+        positionsX[box] = x;
+        positionsY[box] = y;
+        speedsX[box] = speedX;
+        speedsY[box] = speedY;
+        restingTimes[box] = restingTime;
+        randomStates[box] = random.getState();
+    }
+
+    /**
+     * Advances all Boxes by one tick and waits until every worker has
+     * finished.
+     *
+     * @throws IllegalStateException if the BatchSimulator has been closed or
+     *                               a worker has failed
+     */
+    public void tick() {
+        if (!running) {
+            throw new IllegalStateException(
+                    "The batch simulator has been stopped");
+        }
+        long start = System.nanoTime();
+        nextChunk.set(0);
+        try {
+            tickStart.await();
+            tickEnd.await();
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The tick has been interrupted");
+        } catch (BrokenBarrierException exception) {
+            throw new IllegalStateException("A worker has failed", exception);
+        }
+        long latency = System.nanoTime() - start;
+        latencies[(int) (ticks % LATENCY_HISTORY)] = latency;
+        tickTime += latency;
+        ticks++;
+    }
+
+    /**
+     * Returns the number of finished ticks.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns the simulated milliseconds since the start.
+     *
+     * @return the simulated time
+     */
+    public long getSimulatedTime() {
+        return ticks * millisPerTick;
+    }
+
+    /**
+     * Returns the number of ticks per second of the time spent in ticks.
+     *
+     * @return the aggregate ticks per second
+     */
+    public double getTicksPerSecond() {
+        return tickTime == 0 ? 0 : ticks / (tickTime / 1e9);
+    }
+
+    /**
+     * Returns a percentile of the latencies of the last ticks.
+     *
+     * @param percentile the percentile between 0 and 100, for example 99
+     * @return the latency in nanoseconds, or 0 if there was no tick
+     */
+    public long getTickLatency(double percentile) {
+        int count = (int) Math.min(ticks, LATENCY_HISTORY);
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.min(count - 1, Math.max(0, index))];
+    }
+
+    /**
+     * Forgets the measured ticks-per-second and latencies.
+     */
+    public void resetMetrics() {
+        ticks = 0;
+        tickTime = 0;
+    }
+
+    /**
+     * Returns the number of Boxes.
+     *
+     * @return the number of Boxes
+     */
+    public int getBoxCount() {
+        return boxCount;
+    }
+
+    /**
+     * Returns the X-position of the Ball of a Box. Must not be called while
+     * a tick is running.
+     *
+     * @param box the index of the Box
+     * @return the X-position of the Ball
+     */
+    public double getBallX(int box) {
+        return positionsX[box];
+    }
+
+    /**
+     * Returns the Y-position of the Ball of a Box. Must not be called while
+     * a tick is running.
+     *
+     * @param box the index of the Box
+     * @return the Y-position of the Ball
+     */
+    public double getBallY(int box) {
+        return positionsY[box];
+    }
+
+    /**
+     * Stops the worker-Threads.
+     */
+    public void close() {
+        if (running) {
+            running = false;
+            try {
+                tickStart.await();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            } catch (BrokenBarrierException ignored) {
+                // the workers have already stopped
+            }
+        }
+    }
+}
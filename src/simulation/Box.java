@@ -1,7 +1,5 @@
 package simulation;
 
-import java.util.Random;
-
 /**
  * A Box has got a Ball, which is not visible outside the class and two
  * Integer values for its height and length. The height and length are not
@@ -39,13 +37,42 @@ public class Box {
      * @param height the new fixed height of the Box
      */
     public Box(int length, int height, int ballRadius) {
+        this(length, height, ballRadius,
+                new SimulationRandom(SimulationRandom.newSeed()));
+    }
+
+    /**
+     * Creates a new Box with the given length, height and the radius of the
+     * Ball. The random position of the Ball is taken from the given
+     * SimulationRandom, so the same seed always places the Ball at the same
+     * position.
+     *
+     * @param length the new fixed length of the Box
+     * @param height the new fixed height of the Box
+     * @param ballRadius the radius of the Ball
+     * @param random the SimulationRandom for the position of the Ball
+     */
+    public Box(int length, int height, int ballRadius,
+               SimulationRandom random) {
+        this(length, height, ballRadius,
+                random.nextInt(length - 2 * ballRadius) + ballRadius,
+                random.nextInt(height - 2 * ballRadius) + ballRadius);
+    }
+
+    /**
+     * Creates a new Box with the given length, height and the radius of the
+     * Ball. The Ball is set on the given position.
+     *
+     * @param length the new fixed length of the Box
+     * @param height the new fixed height of the Box
+     * @param ballRadius the radius of the Ball
+     * @param ballX  the X-position of the Ball
+     * @param ballY  the Y-position of the Ball
+     */
+    Box(int length, int height, int ballRadius, double ballX, double ballY) {
         this.length = length;
         this.height = height;
-
-        final Random random = new Random();
-        ball = new Ball(ballRadius, random.nextInt(length - 2 * ballRadius)
-               + ballRadius, random.nextInt(height - 2 * ballRadius)
-               + ballRadius);
+        ball = new Ball(ballRadius, ballX, ballY);
     }
 
     /**
@@ -0,0 +1,312 @@
+package simulation;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A BoxStatistics is a PhysicsObserver, which keeps live aggregates of a
+ * running Box: the kinetic energy over time, the wall-hits per wall, a
+ * heatmap of the positions the Ball occupied and a histogram of the times
+ * until the Ball came to rest. All aggregates are kept in fixed-size
+ * primitive arrays, so updating them allocates nothing.
+ * <p>
+ * A BoxStatistics is updated by a single physics-Thread. Readers can copy
+ * the aggregates into a StatisticsSnapshot at any time, without stopping the
+ * simulation. Every update is guarded by a version-number, which is odd
+ * while the update is in progress, so a reader can detect and repeat a copy
+ * that overlapped with an update. A reader only repeats a copy a few times;
+ * afterwards it copies while holding the lock of the updates, so it can not
+ * starve while the physics-Thread updates faster than it copies.
+ *
+ * @see MovementSimulator#addPhysicsObserver(PhysicsObserver)
+ * @see StatisticsSnapshot
+ */
+public class BoxStatistics implements PhysicsObserver {
+
+    /**
+     * The mass of the Ball, which is used for the kinetic energy.
+     */
+    private static final double BALL_MASS = 1;
+
+    /**
+     * The number of copies a reader tries without the lock of the updates.
+     */
+    private static final int MAX_OPTIMISTIC_COPIES = 8;
+
+    /**
+     * The maximal number of heatmap-cells, which limits the heatmap to 8 MB.
+     */
+    private static final long MAX_HEATMAP_CELLS = 1 << 20;
+
+    /**
+     * The length of a heatmap-cell.
+     */
+    private final int cellSize;
+
+    /**
+     * The number of heatmap-columns.
+     */
+    private final int columns;
+
+    /**
+     * The number of heatmap-rows.
+     */
+    private final int rows;
+
+    /**
+     * The milliseconds covered by a bucket of the time-to-rest histogram.
+     */
+    private final long restBucketWidth;
+
+    /**
+     * The version-number of the aggregates. Odd while an update is in
+     * progress.
+     */
+    private volatile long version;
+
+    /**
+     * The lock, which is held during every update. Only a reader, whose
+     * copies overlapped with updates too often, takes it.
+     */
+    private final Object updateLock = new Object();
+
+    /**
+     * The last kinetic energies, used as a ring.
+     */
+    private final double[] energyHistory;
+
+    /**
+     * The number of kinetic energies that have been recorded.
+     */
+    private long energySamples;
+
+    /**
+     * The number of wall-hits per wall, indexed by the ordinal of the Wall.
+     */
+    private final long[] wallHits;
+
+    /**
+     * The milliseconds the Ball spent in every heatmap-cell, row by row.
+     */
+    private final long[] heatmap;
+
+    /**
+     * The number of rests per time-to-rest bucket. The last bucket also
+     * contains all longer times.
+     */
+    private final long[] restHistogram;
+
+    /**
+     * The milliseconds since the Ball got its last speed.
+     */
+    private long timeSinceLaunch;
+
+    /**
+     * Creates a new BoxStatistics for a Box with the given size.
+     *
+     * @param boxLength         the length of the Box
+     * @param boxHeight         the height of the Box
+     * @param cellSize          the length of a heatmap-cell
+     * @param energyHistorySize the number of kinetic energies to keep
+     * @param restBucketWidth   the milliseconds covered by a bucket of the
+     *                          time-to-rest histogram
+     * @param restBucketCount   the number of buckets of the time-to-rest
+     *                          histogram
+     * @throws IllegalArgumentException if a size is not positive or the
+     *                                  heatmap would have more than
+     *                                  1,048,576 cells
+     */
+    public BoxStatistics(int boxLength, int boxHeight, int cellSize,
+                         int energyHistorySize, long restBucketWidth,
+                         int restBucketCount) {
+        if (boxLength < 1 || boxHeight < 1 || cellSize < 1
+                || energyHistorySize < 1 || restBucketWidth < 1
+                || restBucketCount < 1) {
+            throw new IllegalArgumentException(
+                    "The sizes of the statistics have to be positive");
+        }
+        if (countCells(boxLength, boxHeight, cellSize) > MAX_HEATMAP_CELLS) {
+            throw new IllegalArgumentException("A heatmap with cells of "
+                    + cellSize + " units for a Box of " + boxLength + " x "
+                    + boxHeight + " has more than " + MAX_HEATMAP_CELLS
+                    + " cells");
+        }
+        this.cellSize = cellSize;
+        this.restBucketWidth = restBucketWidth;
+        columns = (int) countCells(boxLength, 1, cellSize);
+        rows = (int) countCells(boxHeight, 1, cellSize);
+        energyHistory = new double[energyHistorySize];
+        wallHits = new long[Wall.values().length];
+        heatmap = new long[columns * rows];
+        restHistogram = new long[restBucketCount];
+    }
+
+    /**
+     * Creates a new BoxStatistics for a Box with the given size, with
+     * heatmap-cells of 10 units, the last 1000 kinetic energies and a
+     * time-to-rest histogram with 30 buckets of one second. The cells of
+     * Boxes, which would need more than 1,048,576 cells, are as small as
+     * possible within that limit.
+     *
+     * @param boxLength the length of the Box
+     * @param boxHeight the height of the Box
+     */
+    public BoxStatistics(int boxLength, int boxHeight) {
+        this(boxLength, boxHeight, fitCellSize(boxLength, boxHeight), 1000,
+                1000, 30);
+    }
+
+    /**
+     * Returns the number of heatmap-cells covering a Box.
+     *
+     * @param boxLength the length of the Box
+     * @param boxHeight the height of the Box
+     * @param cellSize  the length of a heatmap-cell
+     * @return the number of heatmap-cells
+     */
+    private static long countCells(int boxLength, int boxHeight,
+                                   int cellSize) {
+        long columns = ((long) boxLength + cellSize - 1) / cellSize;
+        long rows = ((long) boxHeight + cellSize - 1) / cellSize;
+        return columns * rows;
+    }
+
+    /**
+     * Returns the smallest cell-size of at least 10 units, whose heatmap does
+     * not have more than the maximal number of cells.
+     *
+     * @param boxLength the length of the Box
+     * @param boxHeight the height of the Box
+     * @return the cell-size
+     */
+    private static int fitCellSize(int boxLength, int boxHeight) {
+        int cellSize = Math.max(10, (int) Math.sqrt(
+                (double) boxLength * boxHeight / MAX_HEATMAP_CELLS));
+        while (countCells(boxLength, boxHeight, cellSize)
+                > MAX_HEATMAP_CELLS) {
+            cellSize++;
+        }
+        return cellSize;
+    }
+
+    /**
+     * Marks the beginning of an update.
+     */
+    private void beginUpdate() {
+        version = version + 1;
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Marks the end of an update.
+     */
+    private void endUpdate() {
+        version = version + 1;
+    }
+
+    /**
+     * Restarts the measurement of the time until the Ball comes to rest.
+     *
+     * @see PhysicsObserver
+     */
+    public void onLaunch() {
+        synchronized (updateLock) {
+            beginUpdate();
+            timeSinceLaunch = 0;
+            endUpdate();
+        }
+    }
+
+    /**
+     * Records the kinetic energy and the position of the Ball.
+     *
+     * @see PhysicsObserver
+     */
+    public void onTick(double x, double y, double speedX, double speedY,
+                       int elapsedTime) {
+        synchronized (updateLock) {
+            beginUpdate();
+            energyHistory[(int) (energySamples % energyHistory.length)] =
+                    0.5 * BALL_MASS * (speedX * speedX + speedY * speedY);
+            energySamples++;
+            int column = Math.min(Math.max((int) x / cellSize, 0),
+                    columns - 1);
+            int row = Math.min(Math.max((int) y / cellSize, 0), rows - 1);
+            heatmap[row * columns + column] += elapsedTime;
+            timeSinceLaunch += elapsedTime;
+            endUpdate();
+        }
+    }
+
+    /**
+     * Counts the hit of the wall.
+     *
+     * @see PhysicsObserver
+     */
+    public void onWallHit(Wall wall) {
+        synchronized (updateLock) {
+            beginUpdate();
+            wallHits[wall.ordinal()]++;
+            endUpdate();
+        }
+    }
+
+    /**
+     * Records the time it took until the Ball came to rest.
+     *
+     * @see PhysicsObserver
+     */
+    public void onRest() {
+        synchronized (updateLock) {
+            beginUpdate();
+            int bucket = (int) Math.min(timeSinceLaunch / restBucketWidth,
+                    restHistogram.length - 1);
+            restHistogram[bucket]++;
+            endUpdate();
+        }
+    }
+
+    /**
+     * Creates a new StatisticsSnapshot, which fits the aggregates of this
+     * BoxStatistics. The StatisticsSnapshot should be reused for every copy.
+     *
+     * @return an empty StatisticsSnapshot
+     */
+    public StatisticsSnapshot createSnapshot() {
+        return new StatisticsSnapshot(energyHistory.length, columns, rows,
+                restBucketWidth, restHistogram.length);
+    }
+
+    /**
+     * Copies the current aggregates into the given StatisticsSnapshot. The
+     * copy is repeated, if it overlapped with an update. After a few
+     * overlapping copies, the copy is made while holding the lock of the
+     * updates, so the StatisticsSnapshot is always consistent.
+     *
+     * @param snapshot a StatisticsSnapshot of this BoxStatistics
+     * @throws IllegalArgumentException if the StatisticsSnapshot has not been
+     *                                  created by this BoxStatistics
+     */
+    public void snapshot(StatisticsSnapshot snapshot) {
+        if (!snapshot.fits(energyHistory.length, heatmap.length,
+                restHistogram.length)) {
+            throw new IllegalArgumentException(
+                    "The snapshot does not fit these statistics");
+        }
+        for (int i = 0; i < MAX_OPTIMISTIC_COPIES; i++) {
+            long startVersion = version;
+            if ((startVersion & 1) == 0) {
+                snapshot.copy(energyHistory, energySamples, wallHits, heatmap,
+                        restHistogram);
+                VarHandle.loadLoadFence();
+                if (version == startVersion) {
+                    return;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        synchronized (updateLock) {
+            snapshot.copy(energyHistory, energySamples, wallHits, heatmap,
+                    restHistogram);
+        }
+    }
+}
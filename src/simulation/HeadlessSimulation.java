@@ -0,0 +1,57 @@
+package simulation;
+
+/**
+ * The HeadlessSimulation runs a MovementSimulator without any graphical
+ * user interface. It only uses the simulation-package, so neither AWT nor
+ * Swing are loaded. The ticks are calculated as fast as possible until the
+ * given simulated time is over. The report shows the time from the start of
+ * the Java virtual machine to the first calculated tick, the final state of
+ * the Ball and the number of wall-hits.
+ * <p>
+ * Usage: {@code java simulation.HeadlessSimulation [length] [height]
+ * [radius] [seed] [seconds]}
+ *
+ * @see StartupClock
+ */
+public class HeadlessSimulation {
+
+    /**
+     * Not instantiable.
+     */
+    private HeadlessSimulation() {
+    }
+
+    /**
+     * Runs the simulation and prints the report.
+     *
+     * @param args the length and height of the Box, the radius of the Ball,
+     *             the seed and the simulated seconds, all optional
+     */
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 640;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : 480;
+        int radius = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+        long simulatedTime = args.length > 4
+                ? Long.parseLong(args[4]) * 1000 : 60_000;
+
+        MovementSimulator simulator = new MovementSimulator(length, height,
+                radius, seed);
+        long elapsedTime = simulator.tick();
+        long timeToFirstTick = StartupClock.millisSinceStart();
+
+        long begin = System.nanoTime();
+        while (elapsedTime < simulatedTime) {
+            elapsedTime += simulator.tick();
+        }
+        long wallTime = System.nanoTime() - begin;
+
+        System.out.printf("Time to first tick: %d ms%n", timeToFirstTick);
+        System.out.printf("Simulated %d ms in %.1f ms%n", elapsedTime,
+                wallTime / 1e6);
+        System.out.printf("Ball at (%.2f, %.2f), %s, %d wall-hits%n",
+                simulator.getBallX(), simulator.getBallY(),
+                simulator.isBallInactive() ? "resting" : "rolling",
+                simulator.getWallHits());
+    }
+}
@@ -0,0 +1,133 @@
+package simulation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The IdleModeReport shows what many resting Boxes cost. A number of
+ * MovementSimulators is started with resting Balls and observed in two
+ * phases. During the idle phase no Ball is relaunched, because all rests
+ * last longer than the phase, so the report shows the CPU-time and wakeups
+ * of Boxes that are only waiting. During the following relaunch phase the
+ * rests end, so the report shows that a resting Box is only woken up for its
+ * relaunch. The CPU-time of that phase mostly belongs to the rolling
+ * Balls. For both phases the report counts the live Threads, the parked
+ * MovementSimulators and the wakeups of the IdleScheduler. Without parking,
+ * every resting Box would keep a sleeping Thread.
+ * <p>
+ * Usage: {@code java simulation.IdleModeReport [boxes] [seconds] [seed]}
+ *
+ * @see IdleScheduler
+ */
+public class IdleModeReport {
+
+    /**
+     * The milliseconds the rests last longer than the idle phase. Covers
+     * the time it takes until all MovementSimulators have parked, so no Ball
+     * is relaunched during the idle phase.
+     */
+    private static final int IDLE_MARGIN = 1000;
+
+    /**
+     * The milliseconds over which the relaunches are spread after the idle
+     * phase.
+     */
+    private static final int RELAUNCH_SPREAD = 1000;
+
+    /**
+     * The milliseconds the relaunch phase is longer than the spread of the
+     * relaunches, so every Ball has been relaunched at its end.
+     */
+    private static final int RELAUNCH_MARGIN = 500;
+
+    /**
+     * The ThreadMXBean counting the live Threads.
+     */
+    private static final ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean();
+
+    /**
+     * The OperatingSystemMXBean measuring the CPU-time of the process.
+     */
+    private static final com.sun.management.OperatingSystemMXBean SYSTEM =
+            (com.sun.management.OperatingSystemMXBean)
+                    ManagementFactory.getOperatingSystemMXBean();
+
+    /**
+     * Not instantiable.
+     */
+    private IdleModeReport() {
+    }
+
+    /**
+     * Runs the observation and prints the report.
+     *
+     * @param args the number of Boxes, the seconds of the idle phase and the
+     *             seed, all optional
+     * @throws InterruptedException if the observation is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int boxes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        SimulationRandom random = new SimulationRandom(seed);
+
+        int threadsBefore = THREADS.getThreadCount();
+        long idleTime = seconds * 1000L;
+        MovementSimulator[] simulators = new MovementSimulator[boxes];
+        for (int i = 0; i < boxes; i++) {
+            simulators[i] = new MovementSimulator(new SimulatorCheckpoint(
+                    640, 480, 20, 320, 240, 0, 0, 10, random.nextLong(),
+                    idleTime + IDLE_MARGIN
+                            + random.nextInt(RELAUNCH_SPREAD)));
+        }
+        for (MovementSimulator simulator : simulators) {
+            simulator.startMovement();
+        }
+        while (IdleScheduler.getParkedCount() < boxes) {
+            Thread.sleep(10);
+        }
+
+        System.out.printf("Boxes: %d (without parking: %d sleeping Threads)"
+                + "%n%n", boxes, boxes);
+        System.out.printf("%-9s %8s %14s %14s %9s %12s %13s%n", "phase",
+                "window", "parked", "added Threads", "wakeups",
+                "CPU-time", "CPU-share");
+        observe("idle", idleTime, threadsBefore);
+        observe("relaunch", IDLE_MARGIN + RELAUNCH_SPREAD + RELAUNCH_MARGIN,
+                threadsBefore);
+
+        for (MovementSimulator simulator : simulators) {
+            simulator.stopMovement();
+        }
+    }
+
+    /**
+     * Observes a phase and prints its line of the report.
+     *
+     * @param phase         the name of the phase
+     * @param window        the milliseconds of the phase
+     * @param threadsBefore the number of live Threads before the Boxes were
+     *                      started
+     * @throws InterruptedException if the observation is interrupted
+     */
+    private static void observe(String phase, long window, int threadsBefore)
+            throws InterruptedException {
+        int parkedAtStart = IdleScheduler.getParkedCount();
+        int threadsAtStart = THREADS.getThreadCount() - threadsBefore;
+        long wakeupsAtStart = IdleScheduler.getWakeups();
+        long cpuAtStart = SYSTEM.getProcessCpuTime();
+        long begin = System.nanoTime();
+        Thread.sleep(window);
+        long wallTime = System.nanoTime() - begin;
+        long cpuTime = SYSTEM.getProcessCpuTime() - cpuAtStart;
+        long wakeups = IdleScheduler.getWakeups() - wakeupsAtStart;
+        int parkedAtEnd = IdleScheduler.getParkedCount();
+        int threadsAtEnd = THREADS.getThreadCount() - threadsBefore;
+
+        System.out.printf("%-9s %6.1f s %6d->%-6d %6d->%-6d %9d %9.1f ms"
+                        + " %10.2f %%%n", phase, window / 1000.0,
+                parkedAtStart, parkedAtEnd, threadsAtStart, threadsAtEnd,
+                wakeups, cpuTime / 1e6, 100.0 * cpuTime / wallTime);
+    }
+}
@@ -0,0 +1,102 @@
+package simulation;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The IdleScheduler wakes up parked MovementSimulators. A MovementSimulator
+ * whose Ball rests does not keep a sleeping Thread, but parks: it schedules
+ * its relaunch here and lets its physicalCalculation-Thread end. All parked
+ * MovementSimulators share the single daemon Thread of the IdleScheduler,
+ * which is only woken up when a relaunch is due, so thousands of resting
+ * Boxes cost neither Threads nor CPU-time. Parking only saves the idle
+ * Threads: every relaunch still starts a new physicalCalculation-Thread, so
+ * a Box whose Ball rests often pays a Thread-creation per rest.
+ * The IdleScheduler counts the parked MovementSimulators and the wakeups.
+ *
+ * @see MovementSimulator
+ */
+final class IdleScheduler {
+
+    /**
+     * The shared executor with a single daemon Thread. Cancelled wakeups are
+     * removed at once, so stopped MovementSimulators are not retained.
+     */
+    private static final ScheduledThreadPoolExecutor EXECUTOR =
+            new ScheduledThreadPoolExecutor(1, task -> {
+                Thread thread = new Thread(task, "idle-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        EXECUTOR.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * The number of currently parked MovementSimulators.
+     */
+    private static final AtomicInteger PARKED = new AtomicInteger();
+
+    /**
+     * The number of wakeups since the start of the process.
+     */
+    private static final AtomicLong WAKEUPS = new AtomicLong();
+
+    /**
+     * Not instantiable.
+     */
+    private IdleScheduler() {
+    }
+
+    /**
+     * Parks a MovementSimulator until the given wakeup is run after the
+     * given delay.
+     *
+     * @param wakeup the wakeup of the MovementSimulator
+     * @param delay  the milliseconds until the wakeup
+     * @return the Future, which is cancelled to unpark the MovementSimulator
+     * without waking it up
+     */
+    static ScheduledFuture<?> park(Runnable wakeup, long delay) {
+        PARKED.incrementAndGet();
+        return EXECUTOR.schedule(() -> {
+            PARKED.decrementAndGet();
+            WAKEUPS.incrementAndGet();
+            wakeup.run();
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Unparks a MovementSimulator without waking it up. Does nothing if the
+     * wakeup has already been run.
+     *
+     * @param parking the Future returned by park
+     */
+    static void unpark(ScheduledFuture<?> parking) {
+        if (parking.cancel(false)) {
+            PARKED.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of currently parked MovementSimulators.
+     *
+     * @return the number of parked MovementSimulators
+     */
+    static int getParkedCount() {
+        return PARKED.get();
+    }
+
+    /**
+     * Returns the number of wakeups since the start of the process.
+     *
+     * @return the number of wakeups
+     */
+    static long getWakeups() {
+        return WAKEUPS.get();
+    }
+}
@@ -1,10 +1,9 @@
 package simulation;
 
-import gui.BallStateObserver;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ScheduledFuture;
 
 /**
  * A MovementSimulator has got a Box with a Ball and calculates the speed,
@@ -12,21 +11,50 @@ import java.util.Random;
  * The MovementSimulator acts as an Observable Object, which notifies its
  * registered Observers when the Ball gets inactive or active.
  * A MovementSimulator also provides all information of the Ball.
+ * All random decisions of a MovementSimulator are taken from a seedable
+ * SimulationRandom, so two MovementSimulators with the same seed behave
+ * identically. The full state can be saved as a SimulatorCheckpoint and
+ * restored later.
  *
  * @see Simulation
  */
 public class MovementSimulator implements Simulation {
 
+    /**
+     * The magnitude the speed of a rolling Ball loses per millisecond.
+     */
+    private static final double ROLLING_FRICTION = 0.0001;
+
+    /**
+     * The number of frames the StateRingBuffer holds by default. Enough for
+     * consumers that only read the latest Ball-state, like a conflating
+     * consumer of a view.
+     */
+    public static final int DEFAULT_STATE_BUFFER_CAPACITY = 16;
+
     /**
      * The Box with the Ball.
      */
     private Box box;
 
     /**
-     * The Thread for physical calculations.
+     * The Thread for physical calculations. It is null while the movement is
+     * stopped or parked.
      */
     private Thread physicalCalculation;
 
+    /**
+     * The scheduled wakeup of the parked movement, or null if the movement is
+     * not parked.
+     */
+    private ScheduledFuture<?> parking;
+
+    /**
+     * Guards the physicalCalculation-Thread and the parking against
+     * concurrent starts, stops, parkings and wakeups.
+     */
+    private final Object movementLock = new Object();
+
     /**
      * The number of seconds, the Thread for physical calculations will wait
      * until a calculation has been done.
@@ -34,15 +62,70 @@ public class MovementSimulator implements Simulation {
     private int refreshTime;
 
     /**
-     * Stops a running physicalCalculation-Thread, when set to false.
+     * If the movement has been started and not been stopped. Stops a running
+     * physicalCalculation-Thread, when set to false.
      */
-    private boolean simulationIsActive;
+    private volatile boolean simulationIsActive;
+
+    /**
+     * The SimulationRandom for the random speed of the Ball and the time
+     * a Ball rests.
+     */
+    private final SimulationRandom random;
+
+    /**
+     * The milliseconds a resting Ball has to wait until it gets a new random
+     * speed. It is 0 while the Ball is moving.
+     */
+    private long pendingRelaunchTime;
+
+    /**
+     * The value of System.nanoTime(), when the physicalCalculation-Thread
+     * started to wait for the relaunch of the Ball. It is -1 when the
+     * Thread does not wait.
+     */
+    private long relaunchCountdownStart = -1;
+
+    /**
+     * If the Ball already got its first random speed or a restored one.
+     */
+    private boolean launched;
+
+    /**
+     * If calculatePhysicalData may cover several milliseconds at once while
+     * the Ball is far away from every wall.
+     */
+    private boolean adaptiveStepping;
+
+    /**
+     * The number of times the Ball has hit a wall of the Box.
+     */
+    private long wallHits;
+
+    /**
+     * The PhysicsObservers, which are updated by the physics-calculations.
+     * The array is replaced whenever a PhysicsObserver is added or removed,
+     * so iterating it does not allocate anything.
+     */
+    private volatile PhysicsObserver[] physicsObservers =
+            new PhysicsObserver[0];
+
+    /**
+     * Guards the state of the simulation against a concurrent checkpoint.
+     */
+    private final Object stateLock = new Object();
 
     /**
      * The List of interested Observers.
      */
     private List<BallStateObserver> observers;
 
+    /**
+     * The StateRingBuffer, the physicalCalculation-Thread publishes the
+     * Ball-state into after every calculation.
+     */
+    private final StateRingBuffer stateBuffer;
+
     /**
      * Instantiates a new MovementSimulator with a new Box and Ball
      * The refresh-Time is set to 10 milliseconds.
@@ -53,9 +136,80 @@ public class MovementSimulator implements Simulation {
      *                   instantiated Box.
      */
     public MovementSimulator(int length, int height, int ballRadius) {
-        box = new Box(length, height, ballRadius);
+        this(length, height, ballRadius, SimulationRandom.newSeed());
+    }
+
+    /**
+     * Instantiates a new MovementSimulator with a new Box and Ball, whose
+     * random decisions are taken from the given seed. The position of the
+     * Ball and all random speeds only depend on the seed.
+     * The refresh-Time is set to 10 milliseconds.
+     *
+     * @param length     the length of the new instantiated Box
+     * @param height     the height of the new instantiated Box
+     * @param ballRadius the radius of the instantiated Ball in the new
+     *                   instantiated Box.
+     * @param seed       the seed for all random decisions
+     */
+    public MovementSimulator(int length, int height, int ballRadius,
+                             long seed) {
+        this(length, height, ballRadius, seed, DEFAULT_STATE_BUFFER_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new MovementSimulator with a new Box and Ball, whose
+     * random decisions are taken from the given seed, and a StateRingBuffer
+     * with the given capacity. Only consumers that have to read every
+     * Ball-state, like a recorder, need a StateRingBuffer deeper than the
+     * default one.
+     * The refresh-Time is set to 10 milliseconds.
+     *
+     * @param length              the length of the new instantiated Box
+     * @param height              the height of the new instantiated Box
+     * @param ballRadius          the radius of the instantiated Ball in the
+     *                            new instantiated Box.
+     * @param seed                the seed for all random decisions
+     * @param stateBufferCapacity the minimal number of frames in the
+     *                            StateRingBuffer
+     */
+    public MovementSimulator(int length, int height, int ballRadius,
+                             long seed, int stateBufferCapacity) {
+        box = new Box(length, height, ballRadius,
+                SimulationRandom.forStream(seed, 0));
+        random = SimulationRandom.forStream(seed, 1);
         observers = new ArrayList<>();
         refreshTime = 10;
+        stateBuffer = new StateRingBuffer(stateBufferCapacity);
+    }
+
+    /**
+     * Instantiates a new MovementSimulator with the state of the given
+     * SimulatorCheckpoint.
+     *
+     * @param checkpoint the state of the new MovementSimulator
+     * @see #restore(SimulatorCheckpoint)
+     */
+    public MovementSimulator(SimulatorCheckpoint checkpoint) {
+        this(checkpoint, DEFAULT_STATE_BUFFER_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new MovementSimulator with the state of the given
+     * SimulatorCheckpoint and a StateRingBuffer with the given capacity.
+     * The Box is restored directly, so no random position is drawn, which
+     * would not be possible for a Ball as wide as its Box.
+     *
+     * @param checkpoint          the state of the new MovementSimulator
+     * @param stateBufferCapacity the minimal number of frames in the
+     *                            StateRingBuffer
+     * @see #restore(SimulatorCheckpoint)
+     */
+    public MovementSimulator(SimulatorCheckpoint checkpoint,
+                             int stateBufferCapacity) {
+        random = new SimulationRandom(checkpoint.getRandomState());
+        observers = new ArrayList<>();
+        stateBuffer = new StateRingBuffer(stateBufferCapacity);
+        restore(checkpoint);
     }
 
     /**
@@ -81,6 +235,43 @@ public class MovementSimulator implements Simulation {
         observers.remove(observer);
     }
 
+    /**
+     * Adds a PhysicsObserver, which is updated by every physics-calculation
+     * of this MovementSimulator. The PhysicsObserver is called on the
+     * Thread that performs the calculations.
+     *
+     * @param observer the new PhysicsObserver
+     * @see PhysicsObserver
+     */
+    public synchronized void addPhysicsObserver(PhysicsObserver observer) {
+        PhysicsObserver[] oldObservers = physicsObservers;
+        PhysicsObserver[] newObservers = Arrays.copyOf(oldObservers,
+                oldObservers.length + 1);
+        newObservers[oldObservers.length] = observer;
+        physicsObservers = newObservers;
+    }
+
+    /**
+     * Removes a PhysicsObserver. Does nothing if the PhysicsObserver has not
+     * been added.
+     *
+     * @param observer the PhysicsObserver that is not interested any longer
+     */
+    public synchronized void removePhysicsObserver(PhysicsObserver observer) {
+        PhysicsObserver[] oldObservers = physicsObservers;
+        for (int i = 0; i < oldObservers.length; i++) {
+            if (oldObservers[i] == observer) {
+                PhysicsObserver[] newObservers =
+                        new PhysicsObserver[oldObservers.length - 1];
+                System.arraycopy(oldObservers, 0, newObservers, 0, i);
+                System.arraycopy(oldObservers, i + 1, newObservers, i,
+                        newObservers.length - i);
+                physicsObservers = newObservers;
+                return;
+            }
+        }
+    }
+
     /**
      * Returns the x-Coordinate of the current Ball-position in the Box.
      *
@@ -112,21 +303,76 @@ public class MovementSimulator implements Simulation {
         return box.getBallRadius();
     }
 
+    /**
+     * Enables or disables adaptive stepping. With adaptive stepping, the
+     * physics-calculations take one large step instead of many unit steps,
+     * as long as the Ball can neither reach a wall nor come to rest during
+     * these steps. Near a wall, unit steps are taken like before, so
+     * collisions still shorten the refresh-time. The result differs from
+     * unit steps only by rounding errors.
+     *
+     * @param adaptiveStepping if adaptive stepping is used
+     */
+    public void setAdaptiveStepping(boolean adaptiveStepping) {
+        synchronized (stateLock) {
+            this.adaptiveStepping = adaptiveStepping;
+        }
+    }
+
+    /**
+     * Returns if the Ball in the Box is currently inactive.
+     *
+     * @return if the Ball is inactive
+     * @see Box
+     */
+    public boolean isBallInactive() {
+        return box.isBallInactive();
+    }
+
+    /**
+     * Returns the number of times the Ball has hit a wall of the Box since
+     * this MovementSimulator has been instantiated.
+     *
+     * @return the number of wall-hits
+     */
+    public long getWallHits() {
+        return wallHits;
+    }
+
+    /**
+     * Returns the StateRingBuffer with the Ball-states, which are published
+     * by the physicalCalculation-Thread.
+     *
+     * @return the StateRingBuffer of this MovementSimulator
+     * @see Simulation
+     */
+    public StateRingBuffer getStateBuffer() {
+        return stateBuffer;
+    }
+
+    /**
+     * Publishes the current Ball-state into the StateRingBuffer.
+     */
+    private void publishBallState() {
+        stateBuffer.publish(box.getBallX(), box.getBallY(),
+                box.getBallSpeedInXDirection(),
+                box.getBallSpeedInYDirection(), box.isBallInactive());
+    }
+
     /**
      * Gives the Ball a new random speed.
      * The magnitudes of the speed in x-direction and the speed in y-direction
      * are smaller than 1.
      */
     private void setRandomBallSpeed() {
-        final Random random = new Random();
         boolean positiveX = random.nextBoolean();
         boolean positiveY = random.nextBoolean();
 
-        double newSpeedX = Math.random();
+        double newSpeedX = random.nextDouble();
         if (!positiveX) {
             newSpeedX = newSpeedX * (-1);
         }
-        double newSpeedY = Math.random();
+        double newSpeedY = random.nextDouble();
         if (!positiveY) {
             newSpeedY = newSpeedY * (-1);
         }
@@ -153,6 +399,18 @@ public class MovementSimulator implements Simulation {
         }
     }
 
+    /**
+     * Counts a hit of the given wall and updates the PhysicsObservers.
+     *
+     * @param wall the wall that has been hit
+     */
+    private void hitWall(Wall wall) {
+        wallHits++;
+        for (PhysicsObserver observer : physicsObservers) {
+            observer.onWallHit(wall);
+        }
+    }
+
     /**
      * Inverts the speed of the Ball in x-direction. The speed in x-direction
      * is also slowed.
@@ -182,6 +440,8 @@ public class MovementSimulator implements Simulation {
      * As a result of this the Ball is set next to the wall and the
      * speed-directions of the Ball are inverted. So the Ball moves physically
      * correct away from the wall that was hit.
+     * With adaptive stepping, all milliseconds in which the Ball can not
+     * reach a wall or come to rest are covered by a single step.
      *
      * @return the Tuple that contains the new x-Coordinate and the
      * new y-Coordinate of the Balls position.
@@ -192,17 +452,37 @@ public class MovementSimulator implements Simulation {
         boolean collisionOccurred = false;
 
         for (int i = 1; i <= refreshTime; i++) {
+            int steps = adaptiveStepping
+                    ? freeFlightSteps(newX, newY, refreshTime - i + 1) : 1;
+            if (steps > 1) {
+                double speedX = box.getBallSpeedInXDirection();
+                double speedY = box.getBallSpeedInYDirection();
+                double magnitude = Math.sqrt(speedX * speedX
+                        + speedY * speedY);
+                double distance = steps * magnitude
+                        - ROLLING_FRICTION * steps * (steps - 1) / 2.0;
+                newX += speedX / magnitude * distance;
+                newY += speedY / magnitude * distance;
+                double newMagnitude = magnitude - steps * ROLLING_FRICTION;
+                box.setBallSpeed(speedX / magnitude * newMagnitude,
+                        speedY / magnitude * newMagnitude);
+                i += steps - 1;
+                continue;
+            }
+
             double proofX = newX + box.getBallSpeedInXDirection();
 
             if (proofX < (box.getBallRadius())
                     && box.ballMovesInNegativeXDirection()) {
                 invertAndSlowSpeedInXDirection();
                 collisionOccurred = true;
+                hitWall(Wall.LEFT);
                 proofX = box.getBallRadius();
             } else if (proofX > (box.getLength() - box.getBallRadius())
                     && box.ballMovesInPositiveXDirection()) {
                 invertAndSlowSpeedInXDirection();
                 collisionOccurred = true;
+                hitWall(Wall.RIGHT);
                 proofX = box.getLength() - box.getBallRadius();
             }
 
@@ -211,11 +491,13 @@ public class MovementSimulator implements Simulation {
                     && box.ballMovesInNegativeYDirection()) {
                 invertAndSlowSpeedInYDirection();
                 collisionOccurred = true;
+                hitWall(Wall.TOP);
                 proofY = box.getBallRadius();
             } else if (proofY > (box.getHeight() - box.getBallRadius())
                     && box.ballMovesInPositiveYDirection()) {
                 invertAndSlowSpeedInYDirection();
                 collisionOccurred = true;
+                hitWall(Wall.BOTTOM);
                 proofY = box.getHeight() - box.getBallRadius();
             }
             newX = proofX;
@@ -231,6 +513,52 @@ public class MovementSimulator implements Simulation {
         return new Tuple<>(newX, newY);
     }
 
+    /**
+     * Returns the number of milliseconds the Ball can roll from the given
+     * position, without reaching a wall or coming to rest. Because the
+     * rolling friction only slows the Ball, the current speed is an upper
+     * bound for the distance covered per millisecond.
+     *
+     * @param x        the X-position of the Ball
+     * @param y        the Y-position of the Ball
+     * @param maxSteps the maximal number of milliseconds
+     * @return the number of milliseconds, at least 1
+     */
+    private int freeFlightSteps(double x, double y, int maxSteps) {
+        double speedX = box.getBallSpeedInXDirection();
+        double speedY = box.getBallSpeedInYDirection();
+        double magnitude = Math.sqrt(speedX * speedX + speedY * speedY);
+        long steps = Math.min(maxSteps,
+                (long) (magnitude / ROLLING_FRICTION) - 2);
+        int radius = box.getBallRadius();
+        steps = Math.min(steps, stepsToWall(x, speedX, radius,
+                box.getLength() - radius));
+        steps = Math.min(steps, stepsToWall(y, speedY, radius,
+                box.getHeight() - radius));
+        return (int) Math.max(1, steps);
+    }
+
+    /**
+     * Returns the number of milliseconds a Ball with the given position and
+     * speed on one axis can roll before it might reach a wall. One
+     * millisecond is kept as a margin for rounding errors.
+     *
+     * @param position the position on the axis
+     * @param speed    the speed on the axis
+     * @param min      the smallest allowed position
+     * @param max      the largest allowed position
+     * @return the number of milliseconds
+     */
+    private static long stepsToWall(double position, double speed,
+                                    double min, double max) {
+        if (speed > 0) {
+            return (long) ((max - position) / speed) - 1;
+        } else if (speed < 0) {
+            return (long) ((position - min) / -speed) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
     /**
      * While the Ball the Box is moving, the Ball gets slower and the speed
      * of the Ball is decreased. The new calculated speed is smaller than the
@@ -245,7 +573,7 @@ public class MovementSimulator implements Simulation {
                 * newSpeedInXDirection + newSpeedInYDirection
                 * newSpeedInYDirection);
 
-        double newVectorMagnitude = oldVectorMagnitude - 0.0001;
+        double newVectorMagnitude = oldVectorMagnitude - ROLLING_FRICTION;
         newSpeedInXDirection = (newSpeedInXDirection / oldVectorMagnitude)
                 * newVectorMagnitude;
         newSpeedInYDirection = (newSpeedInYDirection / oldVectorMagnitude)
@@ -253,55 +581,347 @@ public class MovementSimulator implements Simulation {
         box.setBallSpeed(newSpeedInXDirection, newSpeedInYDirection);
     }
 
+    /**
+     * Calculates the movement of the Ball for one refresh-time without
+     * waiting and publishes the new Ball-state, so headless callers can
+     * drive the simulation as fast as possible. If the Ball has no speed yet,
+     * it directly gets a new random speed. A resting Ball stays where it is
+     * and the refresh-time is subtracted from the time until its relaunch;
+     * when that time is over, the Ball gets a new random speed. When the Ball
+     * gets inactive, the time until its relaunch is chosen and the
+     * interested Observers are notified.
+     *
+     * @return the number of milliseconds the calculation covered, which is
+     * smaller than the refresh-time if a collision occurred or the rest
+     * ended
+     */
+    public int tick() {
+        boolean relaunched = false;
+        boolean cameToRest = false;
+        int elapsedTime;
+        synchronized (stateLock) {
+            if (pendingRelaunchTime > 0) {
+                long remainingTime = getRemainingRelaunchTime();
+                elapsedTime = (int) Math.min(refreshTime, remainingTime);
+                pendingRelaunchTime = remainingTime - elapsedTime;
+                relaunchCountdownStart = -1;
+                publishBallState();
+                updatePhysicsObservers(elapsedTime, false);
+                if (pendingRelaunchTime == 0) {
+                    launchBall();
+                    relaunched = true;
+                }
+            } else {
+                if (!launched) {
+                    launchBall();
+                    relaunched = true;
+                }
+                int oldRefreshTime = refreshTime;
+                Tuple<Double> newLocation = calculatePhysicalData();
+                elapsedTime = refreshTime;
+                refreshTime = oldRefreshTime;
+
+                box.placeBall(newLocation.getX(), newLocation.getY());
+                cameToRest = box.isBallInactive();
+                if (cameToRest) {
+                    pendingRelaunchTime = (random.nextInt(10) + 1) * 1000;
+                }
+                publishBallState();
+                updatePhysicsObservers(elapsedTime, cameToRest);
+            }
+        }
+        if (relaunched) {
+            notifyBallIsActive();
+        }
+        if (cameToRest) {
+            notifyBallIsInactive();
+        }
+        return elapsedTime;
+    }
+
+    /**
+     * Gives the Ball a new random speed and publishes it. Has to be called
+     * while holding the stateLock.
+     */
+    private void launchBall() {
+        pendingRelaunchTime = 0;
+        relaunchCountdownStart = -1;
+        launched = true;
+        setRandomBallSpeed();
+        publishBallState();
+        for (PhysicsObserver observer : physicsObservers) {
+            observer.onLaunch();
+        }
+    }
+
+    /**
+     * Updates the PhysicsObservers with the result of a calculation.
+     *
+     * @param elapsedTime the milliseconds the calculation covered
+     * @param cameToRest  if the Ball got inactive during the calculation
+     */
+    private void updatePhysicsObservers(int elapsedTime, boolean cameToRest) {
+        PhysicsObserver[] currentObservers = physicsObservers;
+        if (currentObservers.length == 0) {
+            return;
+        }
+        double x = box.getBallX();
+        double y = box.getBallY();
+        double speedX = box.getBallSpeedInXDirection();
+        double speedY = box.getBallSpeedInYDirection();
+        for (PhysicsObserver observer : currentObservers) {
+            observer.onTick(x, y, speedX, speedY, elapsedTime);
+            if (cameToRest) {
+                observer.onRest();
+            }
+        }
+    }
+
+    /**
+     * Gives a resting Ball a new random speed and notifies the interested
+     * Observers.
+     */
+    private void relaunch() {
+        synchronized (stateLock) {
+            launchBall();
+        }
+        notifyBallIsActive();
+    }
+
+    /**
+     * Starts the countdown until a resting Ball gets a new speed, if it has
+     * not been started yet.
+     *
+     * @return the milliseconds until the relaunch, or 0 if the Ball is moving
+     */
+    private long startRelaunchCountdown() {
+        synchronized (stateLock) {
+            if (pendingRelaunchTime > 0 && relaunchCountdownStart < 0) {
+                relaunchCountdownStart = System.nanoTime();
+            }
+            return getRemainingRelaunchTime();
+        }
+    }
+
+    /**
+     * Stops the countdown until a resting Ball gets a new speed. The time
+     * that has not elapsed yet stays pending.
+     */
+    private void stopRelaunchCountdown() {
+        synchronized (stateLock) {
+            pendingRelaunchTime = getRemainingRelaunchTime();
+            relaunchCountdownStart = -1;
+        }
+    }
+
+    /**
+     * Returns the milliseconds until a resting Ball gets a new speed. Has to
+     * be called while holding the stateLock.
+     *
+     * @return the remaining milliseconds, or 0 if the Ball is moving
+     */
+    private long getRemainingRelaunchTime() {
+        if (relaunchCountdownStart < 0) {
+            return pendingRelaunchTime;
+        }
+        long waited = (System.nanoTime() - relaunchCountdownStart)
+                / 1_000_000;
+        return Math.max(1, pendingRelaunchTime - waited);
+    }
+
+    /**
+     * Saves the full state of this MovementSimulator. The checkpoint can be
+     * taken while the physicalCalculation-Thread is running.
+     *
+     * @return the SimulatorCheckpoint with the current state
+     * @see SimulatorCheckpoint
+     */
+    public SimulatorCheckpoint checkpoint() {
+        synchronized (stateLock) {
+            return new SimulatorCheckpoint(box.getLength(), box.getHeight(),
+                    box.getBallRadius(), box.getBallX(), box.getBallY(),
+                    box.getBallSpeedInXDirection(),
+                    box.getBallSpeedInYDirection(), refreshTime,
+                    random.getState(), getRemainingRelaunchTime());
+        }
+    }
+
+    /**
+     * Restores the state of the given SimulatorCheckpoint. The restored Ball
+     * keeps its speed, so it does not get a new random speed when the
+     * movement is started. A Ball without speed and without a pending
+     * relaunch has not been launched yet, so like the original one it gets
+     * its first random speed with the next tick or start of the movement.
+     * A running simulation can not be restored.
+     *
+     * @param checkpoint the state to restore
+     * @throws IllegalStateException if the movement has been started and not
+     *                               been stopped
+     */
+    public void restore(SimulatorCheckpoint checkpoint) {
+        if (simulationIsActive) {
+            throw new IllegalStateException(
+                    "A running simulation can not be restored");
+        }
+        synchronized (stateLock) {
+            box = new Box(checkpoint.getBoxLength(),
+                    checkpoint.getBoxHeight(), checkpoint.getBallRadius(),
+                    checkpoint.getBallX(), checkpoint.getBallY());
+            box.setBallSpeed(checkpoint.getSpeedX(), checkpoint.getSpeedY());
+            refreshTime = checkpoint.getRefreshTime();
+            random.setState(checkpoint.getRandomState());
+            pendingRelaunchTime = checkpoint.getPendingRelaunchTime();
+            relaunchCountdownStart = -1;
+            launched = pendingRelaunchTime > 0 || checkpoint.getSpeedX() != 0
+                    || checkpoint.getSpeedY() != 0;
+        }
+    }
+
     /**
      * Starts a Thread that calculates the new position of the Ball.
-     * The Thread is active until it is stopped manually.
-     * The calculation is done after the Thread has waited for the given
-     * refresh-time. When there is already a running Thread, this method
-     * will not instantiate a second one. Before the Thread is started,
-     * the Ball gets a random Ball-speed. If the Ball gets marked as inactive,
+     * The Thread is active until it is stopped manually or the Ball rests.
+     * The calculation is done and afterwards the Thread waits for the time
+     * the calculation covered. When the movement has already been started,
+     * this method will not instantiate a second Thread. Before the Thread is
+     * started, the Ball gets a random Ball-speed, unless it has been restored
+     * from a SimulatorCheckpoint. If the Ball gets marked as inactive,
      * the interested Observers are notified, This also happens, when the Ball
-     * gets marked as active. In addition the Thread will wait for
+     * gets marked as active. In addition the movement is parked for
      * 1 - 10 seconds, when the Ball gets marked as inactive, until the Ball
-     * gets a new random speed.
+     * gets a new random speed. A parked movement does not keep its Thread,
+     * its relaunch is scheduled on the shared IdleScheduler instead.
+     * The Observers are notified without holding the movementLock, so a
+     * concurrent stopMovement and startMovement may have started the Thread
+     * or parked the movement meanwhile. In that case no second Thread is
+     * started.
      *
      * @see Simulation
+     * @see IdleScheduler
      */
     public void startMovement() {
-        if (physicalCalculation == null) {
+        synchronized (movementLock) {
+            if (simulationIsActive) {
+                return;
+            }
             simulationIsActive = true;
-            int oldRefreshTime = refreshTime;
-            setRandomBallSpeed();
+        }
+        boolean resting;
+        synchronized (stateLock) {
+            if (!launched) {
+                launchBall();
+            } else {
+                publishBallState();
+            }
+            resting = pendingRelaunchTime > 0;
+        }
+        if (resting) {
+            notifyBallIsInactive();
+        } else {
             notifyBallIsActive();
+        }
+        synchronized (movementLock) {
+            if (simulationIsActive && physicalCalculation == null
+                    && parking == null) {
+                startPhysicalCalculation(false);
+            }
+        }
+    }
 
-            physicalCalculation = new Thread() {
-                public void run() {
-                    while (simulationIsActive) {
-                        Tuple<Double> newLocation = calculatePhysicalData();
-                        try {
-                            sleep(refreshTime);
-                            if (refreshTime != oldRefreshTime) {
-                                refreshTime = oldRefreshTime;
-                            }
-                        } catch (InterruptedException interrupted) {
-                            simulationIsActive = false;
-                        }
-                        box.placeBall(newLocation.getX(), newLocation.getY());
-                        if (box.isBallInactive()) {
-                            notifyBallIsInactive();
-                            final Random random = new Random();
-                            try {
-                                sleep((random.nextInt(10) + 1) * 1000);
-                                setRandomBallSpeed();
-                                notifyBallIsActive();
-                            } catch (InterruptedException exception) {
-                                simulationIsActive = false;
-                            }
+    /**
+     * Starts the physicalCalculation-Thread, which calculates until the
+     * movement is stopped or the Ball rests. A resting Ball parks the
+     * movement. Has to be called while holding the movementLock.
+     *
+     * @param relaunching if the Thread first gives the resting Ball a new
+     *                    random speed and notifies the interested Observers
+     */
+    private void startPhysicalCalculation(boolean relaunching) {
+        physicalCalculation = new Thread() {
+            public void run() {
+                if (relaunching && simulationIsActive) {
+                    relaunch();
+                }
+                while (simulationIsActive) {
+                    try {
+                        long restingTime = startRelaunchCountdown();
+                        if (restingTime > 0) {
+                            park(this, restingTime);
+                            return;
                         }
+                        sleep(tick());
+                    } catch (InterruptedException interrupted) {
+                        return;
                     }
                 }
-            };
-            physicalCalculation.start();
+            }
+        };
+        physicalCalculation.start();
+    }
+
+    /**
+     * Parks the movement: the relaunch of the Ball is scheduled on the
+     * IdleScheduler and the given physicalCalculation-Thread ends afterwards.
+     * Does nothing if the movement has been stopped meanwhile.
+     *
+     * @param calculation the physicalCalculation-Thread that parks
+     * @param restingTime the milliseconds until the relaunch
+     */
+    private void park(Thread calculation, long restingTime) {
+        synchronized (movementLock) {
+            if (simulationIsActive && physicalCalculation == calculation) {
+                physicalCalculation = null;
+                parking = IdleScheduler.park(this::wakeUp, restingTime);
+            }
+        }
+    }
+
+    /**
+     * Wakes up the parked movement: a new physicalCalculation-Thread is
+     * started, which gives the Ball a new random speed. The Observers are
+     * notified by that Thread, so they can neither block the shared Thread
+     * of the IdleScheduler nor run while the movementLock is held. Does
+     * nothing if the movement has been stopped meanwhile.
+     */
+    private void wakeUp() {
+        synchronized (movementLock) {
+            if (simulationIsActive && parking != null) {
+                parking = null;
+                startPhysicalCalculation(true);
+            }
+        }
+    }
+
+    /**
+     * Stops the movement and waits until the physicalCalculation-Thread has
+     * finished. A parked movement is unparked. The state is kept, so the
+     * movement can be started again or saved as a SimulatorCheckpoint. The
+     * remaining time until the relaunch of a resting Ball stays pending.
+     * Does nothing if the movement has not been started.
+     *
+     * @see Simulation
+     */
+    public void stopMovement() {
+        Thread calculation;
+        synchronized (movementLock) {
+            if (!simulationIsActive) {
+                return;
+            }
+            simulationIsActive = false;
+            if (parking != null) {
+                IdleScheduler.unpark(parking);
+                parking = null;
+            }
+            calculation = physicalCalculation;
+            physicalCalculation = null;
+        }
+        if (calculation != null) {
+            calculation.interrupt();
+            try {
+                calculation.join();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
         }
+        stopRelaunchCountdown();
     }
-}
\ No newline at end of file
+}
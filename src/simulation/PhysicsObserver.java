@@ -0,0 +1,41 @@
+package simulation;
+
+/**
+ * A PhysicsObserver gets updated by the physics-calculations of a
+ * MovementSimulator. It is called on the Thread that performs the
+ * calculations, so its methods have to be fast and should not allocate
+ * anything.
+ *
+ * @see MovementSimulator#addPhysicsObserver(PhysicsObserver)
+ */
+public interface PhysicsObserver {
+
+    /**
+     * Notifies the PhysicsObserver that the Ball got a new random speed.
+     */
+    void onLaunch();
+
+    /**
+     * Notifies the PhysicsObserver about the Ball-state after a calculation.
+     *
+     * @param x           the X-position of the Ball
+     * @param y           the Y-position of the Ball
+     * @param speedX      the speed of the Ball in X-direction
+     * @param speedY      the speed of the Ball in Y-direction
+     * @param elapsedTime the milliseconds the calculation covered
+     */
+    void onTick(double x, double y, double speedX, double speedY,
+                int elapsedTime);
+
+    /**
+     * Notifies the PhysicsObserver that the Ball has hit a wall.
+     *
+     * @param wall the wall that has been hit
+     */
+    void onWallHit(Wall wall);
+
+    /**
+     * Notifies the PhysicsObserver that the Ball got inactive.
+     */
+    void onRest();
+}
@@ -0,0 +1,466 @@
+package simulation;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A RestQueryCache answers where a Ball comes to rest and how many
+ * wall-hits it takes, when it starts at a given position with a given speed
+ * in a Box of a given size. The answer is calculated by a headless
+ * MovementSimulator and remembered, so repeated queries do not have to
+ * simulate again.
+ * <p>
+ * The start-position and the speed are quantized, so all queries within the
+ * same quantization-step share one result. Positions range over the size of
+ * the Box and speeds at most from -1 to 1, so both have got their own
+ * precision. The result is always calculated for the quantized values,
+ * limited to the Box and to valid speeds. The results are kept in a bounded
+ * memory-tier, which evicts the least recently used result. Optionally, all
+ * calculated results are also appended to a file, which is read again when a
+ * new RestQueryCache is opened on it, so a restarted application does not
+ * have to calculate them again. The file starts with a header containing
+ * both precisions, so it can not be reopened with different ones.
+ *
+ * @see RestResult
+ * @see MovementSimulator
+ */
+public class RestQueryCache implements Closeable {
+
+    /**
+     * The first bytes of every cache-file.
+     */
+    private static final int MAGIC = 0x42494251;
+
+    /**
+     * The version of the format of the cache-file.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * The number of bytes of the header of the file: the magic, the version
+     * and both precisions.
+     */
+    private static final int HEADER_BYTES = Integer.BYTES + 1
+            + 2 * Double.BYTES;
+
+    /**
+     * The number of bytes of a RestResult in the file.
+     */
+    private static final int RESULT_BYTES = 2 * Double.BYTES
+            + 2 * Long.BYTES;
+
+    /**
+     * The number of bytes of a record in the file.
+     */
+    private static final int RECORD_BYTES = RestQueryKey.BYTES + RESULT_BYTES;
+
+    /**
+     * The maximal number of simulated milliseconds until a Ball has to be
+     * inactive. Protects the cache against a simulation that never ends.
+     */
+    private static final long MAX_REST_TIME = 100_000_000;
+
+    /**
+     * The size of a quantization-step for positions.
+     */
+    private final double positionPrecision;
+
+    /**
+     * The size of a quantization-step for speeds.
+     */
+    private final double speedPrecision;
+
+    /**
+     * The maximal number of results in the memory-tier.
+     */
+    private final int capacity;
+
+    /**
+     * The results in the memory-tier, ordered from the least recently used
+     * to the most recently used one.
+     */
+    private final LinkedHashMap<RestQueryKey, RestResult> memoryTier;
+
+    /**
+     * The file of the persistent tier, or null if there is none.
+     */
+    private final RandomAccessFile diskTier;
+
+    /**
+     * The position of every result in the file of the persistent tier.
+     */
+    private final Map<RestQueryKey, Long> diskIndex;
+
+    /**
+     * The number of queries answered by the memory-tier.
+     */
+    private long memoryHits;
+
+    /**
+     * The number of queries answered by the persistent tier.
+     */
+    private long diskHits;
+
+    /**
+     * The number of queries that had to be simulated.
+     */
+    private long misses;
+
+    /**
+     * The number of results evicted from the memory-tier.
+     */
+    private long evictions;
+
+    /**
+     * Creates a new RestQueryCache without a persistent tier.
+     *
+     * @param positionPrecision the size of a quantization-step for positions
+     * @param speedPrecision    the size of a quantization-step for speeds
+     * @param capacity          the maximal number of results in memory
+     */
+    public RestQueryCache(double positionPrecision, double speedPrecision,
+                          int capacity) {
+        this(positionPrecision, speedPrecision, capacity, null);
+    }
+
+    /**
+     * Creates a new RestQueryCache, whose results are also stored in the
+     * given file. If the file already exists, its results are available
+     * immediately, but only if it has been written with the same precisions.
+     *
+     * @param positionPrecision the size of a quantization-step for positions
+     * @param speedPrecision    the size of a quantization-step for speeds
+     * @param capacity          the maximal number of results in memory
+     * @param file              the file of the persistent tier, or null
+     * @throws IllegalArgumentException if a precision or the capacity is not
+     *                                  positive
+     * @throws IllegalStateException    if the file can not be read, is not a
+     *                                  cache-file or has been written with
+     *                                  other precisions
+     */
+    public RestQueryCache(double positionPrecision, double speedPrecision,
+                          int capacity, File file) {
+        if (!(positionPrecision > 0) || !(speedPrecision > 0)
+                || capacity < 1) {
+            throw new IllegalArgumentException(
+                    "The precisions and the capacity have to be positive");
+        }
+        this.positionPrecision = positionPrecision;
+        this.speedPrecision = speedPrecision;
+        this.capacity = capacity;
+        memoryTier = new LinkedHashMap<RestQueryKey, RestResult>(16, 0.75f,
+                true) {
+            protected boolean removeEldestEntry(
+                    Map.Entry<RestQueryKey, RestResult> eldest) {
+                if (size() > RestQueryCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        diskIndex = new HashMap<>();
+        if (file == null) {
+            diskTier = null;
+        } else {
+            RandomAccessFile opened = null;
+            try {
+                opened = new RandomAccessFile(file, "rw");
+                diskTier = opened;
+                loadDiskIndex();
+            } catch (IOException exception) {
+                try {
+                    if (opened != null) {
+                        opened.close();
+                    }
+                } catch (IOException closing) {
+                    exception.addSuppressed(closing);
+                }
+                throw new IllegalStateException(
+                        "The cache-file can not be read: " + file, exception);
+            }
+        }
+    }
+
+    /**
+     * Checks the header of the file of the persistent tier and reads the keys
+     * of all complete records. The header is written into an empty file. An
+     * incomplete record at the end of the file is cut off.
+     *
+     * @throws IOException if the file can not be read, is not a cache-file
+     *                     or has been written with other precisions
+     */
+    private void loadDiskIndex() throws IOException {
+        diskTier.seek(0);
+        if (diskTier.length() == 0) {
+            diskTier.writeInt(MAGIC);
+            diskTier.writeByte(VERSION);
+            diskTier.writeDouble(positionPrecision);
+            diskTier.writeDouble(speedPrecision);
+        } else {
+            if (diskTier.length() < HEADER_BYTES
+                    || diskTier.readInt() != MAGIC) {
+                throw new IOException("The file is not a cache-file");
+            }
+            byte version = diskTier.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported cache-file version: "
+                        + version);
+            }
+            double filePositionPrecision = diskTier.readDouble();
+            double fileSpeedPrecision = diskTier.readDouble();
+            if (filePositionPrecision != positionPrecision
+                    || fileSpeedPrecision != speedPrecision) {
+                throw new IOException("The cache-file has been written with"
+                        + " the position-precision " + filePositionPrecision
+                        + " and the speed-precision " + fileSpeedPrecision);
+            }
+        }
+
+        long records = (diskTier.length() - HEADER_BYTES) / RECORD_BYTES;
+        for (long i = 0; i < records; i++) {
+            long offset = HEADER_BYTES + i * RECORD_BYTES;
+            diskTier.seek(offset);
+            diskIndex.put(RestQueryKey.readFrom(diskTier), offset);
+        }
+        diskTier.setLength(HEADER_BYTES + records * RECORD_BYTES);
+    }
+
+    /**
+     * Returns where a Ball comes to rest, which starts at the given position
+     * with the given speed in a Box with the given size. The simulation of a
+     * missing result does not hold the lock of the RestQueryCache, so other
+     * queries are answered meanwhile.
+     *
+     * @param boxLength  the length of the Box
+     * @param boxHeight  the height of the Box
+     * @param ballRadius the radius of the Ball
+     * @param x          the X-position of the Ball
+     * @param y          the Y-position of the Ball
+     * @param speedX     the speed of the Ball in X-direction
+     * @param speedY     the speed of the Ball in Y-direction
+     * @return the RestResult for the quantized query
+     * @throws IllegalArgumentException if the Ball is not inside the Box or
+     *                                  one of the speed-components is greater
+     *                                  than 1
+     */
+    public RestResult query(int boxLength, int boxHeight, int ballRadius,
+                            double x, double y, double speedX,
+                            double speedY) {
+        if (!(x >= ballRadius && x <= boxLength - ballRadius
+                && y >= ballRadius && y <= boxHeight - ballRadius)) {
+            throw new IllegalArgumentException(
+                    "The Ball is not inside the Box: " + x + ", " + y);
+        }
+        if (!(Math.abs(speedX) <= 1 && Math.abs(speedY) <= 1)) {
+            throw new IllegalArgumentException(
+                    "The speed is greater than 1: " + speedX + ", " + speedY);
+        }
+        RestQueryKey key = new RestQueryKey(boxLength, boxHeight, ballRadius,
+                quantize(x, positionPrecision),
+                quantize(y, positionPrecision),
+                quantize(speedX, speedPrecision),
+                quantize(speedY, speedPrecision));
+
+        RestResult result;
+        synchronized (this) {
+            result = memoryTier.get(key);
+            if (result != null) {
+                memoryHits++;
+                return result;
+            }
+            result = readFromDisk(key);
+            if (result != null) {
+                diskHits++;
+                memoryTier.put(key, result);
+                return result;
+            }
+        }
+        result = simulate(key);
+        synchronized (this) {
+            misses++;
+            if (!diskIndex.containsKey(key)) {
+                writeToDisk(key, result);
+            }
+            memoryTier.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Quantizes a value to the given precision.
+     *
+     * @param value     the value to quantize
+     * @param precision the size of a quantization-step
+     * @return the number of quantization-steps
+     */
+    private static long quantize(double value, double precision) {
+        return Math.round(value / precision);
+    }
+
+    /**
+     * Returns the given value, limited to the given range.
+     *
+     * @param value the value
+     * @param min   the lower limit
+     * @param max   the upper limit
+     * @return the limited value
+     */
+    private static double clamp(double value, double min, double max) {
+        return Math.min(Math.max(value, min), max);
+    }
+
+    /**
+     * Simulates the movement of the Ball of the given query until the Ball
+     * is inactive. Rounding to the quantization-steps can move a Ball near a
+     * wall out of the Box or a speed-component above 1, so the quantized
+     * values are limited to the Box and to speeds from -1 to 1.
+     *
+     * @param key the query
+     * @return the RestResult of the simulation
+     */
+    private RestResult simulate(RestQueryKey key) {
+        double x = clamp(key.x * positionPrecision, key.ballRadius,
+                key.boxLength - key.ballRadius);
+        double y = clamp(key.y * positionPrecision, key.ballRadius,
+                key.boxHeight - key.ballRadius);
+        double speedX = clamp(key.speedX * speedPrecision, -1, 1);
+        double speedY = clamp(key.speedY * speedPrecision, -1, 1);
+
+        MovementSimulator simulator = new MovementSimulator(
+                new SimulatorCheckpoint(key.boxLength, key.boxHeight,
+                        key.ballRadius, x, y, speedX, speedY, 10, 0, 0));
+        long restTime = 0;
+        while (!simulator.isBallInactive()) {
+            restTime += simulator.tick();
+            if (restTime > MAX_REST_TIME) {
+                throw new IllegalStateException(
+                        "The Ball does not come to rest");
+            }
+        }
+        return new RestResult(simulator.getBallX(), simulator.getBallY(),
+                simulator.getWallHits(), restTime);
+    }
+
+    /**
+     * Reads the result of the given query from the persistent tier.
+     *
+     * @param key the query
+     * @return the stored RestResult, or null if it has not been stored
+     */
+    private RestResult readFromDisk(RestQueryKey key) {
+        Long offset = diskIndex.get(key);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            diskTier.seek(offset + RestQueryKey.BYTES);
+            return new RestResult(diskTier.readDouble(),
+                    diskTier.readDouble(), diskTier.readLong(),
+                    diskTier.readLong());
+        } catch (IOException exception) {
+            diskIndex.remove(key);
+            return null;
+        }
+    }
+
+    /**
+     * Appends the result of the given query to the persistent tier. Does
+     * nothing if there is no persistent tier.
+     *
+     * @param key    the query
+     * @param result the result of the query
+     */
+    private void writeToDisk(RestQueryKey key, RestResult result) {
+        if (diskTier == null) {
+            return;
+        }
+        try {
+            long offset = diskTier.length();
+            diskTier.seek(offset);
+            key.writeTo(diskTier);
+            diskTier.writeDouble(result.getRestX());
+            diskTier.writeDouble(result.getRestY());
+            diskTier.writeLong(result.getWallHits());
+            diskTier.writeLong(result.getRestTime());
+            diskIndex.put(key, offset);
+        } catch (IOException exception) {
+            throw new IllegalStateException(
+                    "The cache-file can not be written", exception);
+        }
+    }
+
+    /**
+     * Returns the number of queries answered by the memory-tier.
+     *
+     * @return the number of memory-hits
+     */
+    public synchronized long getMemoryHits() {
+        return memoryHits;
+    }
+
+    /**
+     * Returns the number of queries answered by the persistent tier.
+     *
+     * @return the number of disk-hits
+     */
+    public synchronized long getDiskHits() {
+        return diskHits;
+    }
+
+    /**
+     * Returns the number of queries that had to be simulated.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of results that have been evicted from the
+     * memory-tier.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the share of queries, which did not have to be simulated.
+     *
+     * @return the hit-rate between 0 and 1, or 0 if there was no query
+     */
+    public synchronized double getHitRate() {
+        long hits = memoryHits + diskHits;
+        long queries = hits + misses;
+        return queries == 0 ? 0 : (double) hits / queries;
+    }
+
+    /**
+     * Returns the number of results in the memory-tier.
+     *
+     * @return the number of results in memory
+     */
+    public synchronized int size() {
+        return memoryTier.size();
+    }
+
+    /**
+     * Closes the file of the persistent tier. Does nothing if there is no
+     * persistent tier.
+     *
+     * @throws IOException if the file can not be closed
+     */
+    public synchronized void close() throws IOException {
+        if (diskTier != null) {
+            diskTier.close();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A RestQueryKey identifies a query of a RestQueryCache. The size of the Box
+ * and the radius of the Ball are kept as they are, the start-position and
+ * the speed of the Ball are quantized to the precisions of the cache.
+ *
+ * @see RestQueryCache
+ */
+class RestQueryKey {
+
+    /**
+     * The number of bytes of a written RestQueryKey.
+     */
+    static final int BYTES = 3 * Integer.BYTES + 4 * Long.BYTES;
+
+    /**
+     * The length of the Box.
+     */
+    final int boxLength;
+
+    /**
+     * The height of the Box.
+     */
+    final int boxHeight;
+
+    /**
+     * The radius of the Ball.
+     */
+    final int ballRadius;
+
+    /**
+     * The quantized X-position of the Ball.
+     */
+    final long x;
+
+    /**
+     * The quantized Y-position of the Ball.
+     */
+    final long y;
+
+    /**
+     * The quantized speed of the Ball in X-direction.
+     */
+    final long speedX;
+
+    /**
+     * The quantized speed of the Ball in Y-direction.
+     */
+    final long speedY;
+
+    /**
+     * Creates a new RestQueryKey with already quantized values.
+     *
+     * @param boxLength  the length of the Box
+     * @param boxHeight  the height of the Box
+     * @param ballRadius the radius of the Ball
+     * @param x          the quantized X-position of the Ball
+     * @param y          the quantized Y-position of the Ball
+     * @param speedX     the quantized speed in X-direction
+     * @param speedY     the quantized speed in Y-direction
+     */
+    RestQueryKey(int boxLength, int boxHeight, int ballRadius, long x,
+                 long y, long speedX, long speedY) {
+        this.boxLength = boxLength;
+        this.boxHeight = boxHeight;
+        this.ballRadius = ballRadius;
+        this.x = x;
+        this.y = y;
+        this.speedX = speedX;
+        this.speedY = speedY;
+    }
+
+    /**
+     * Writes this RestQueryKey.
+     *
+     * @param out the output to write to
+     * @throws IOException if the output can not be written
+     */
+    void writeTo(DataOutput out) throws IOException {
+        out.writeInt(boxLength);
+        out.writeInt(boxHeight);
+        out.writeInt(ballRadius);
+        out.writeLong(x);
+        out.writeLong(y);
+        out.writeLong(speedX);
+        out.writeLong(speedY);
+    }
+
+    /**
+     * Reads a RestQueryKey.
+     *
+     * @param in the input to read from
+     * @return the read RestQueryKey
+     * @throws IOException if the input can not be read
+     */
+    static RestQueryKey readFrom(DataInput in) throws IOException {
+        return new RestQueryKey(in.readInt(), in.readInt(), in.readInt(),
+                in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+
+    /**
+     * Proofs if the given Object is a RestQueryKey with the same values.
+     *
+     * @param other the Object to compare with
+     * @return if the Object is an equal RestQueryKey
+     */
+    public boolean equals(Object other) {
+        if (!(other instanceof RestQueryKey)) {
+            return false;
+        }
+        RestQueryKey key = (RestQueryKey) other;
+        return boxLength == key.boxLength && boxHeight == key.boxHeight
+                && ballRadius == key.ballRadius && x == key.x && y == key.y
+                && speedX == key.speedX && speedY == key.speedY;
+    }
+
+    /**
+     * Returns a hash-code, which depends on all values.
+     *
+     * @return the hash-code
+     */
+    public int hashCode() {
+        long hash = boxLength;
+        hash = hash * 31 + boxHeight;
+        hash = hash * 31 + ballRadius;
+        hash = hash * 31 + x;
+        hash = hash * 31 + y;
+        hash = hash * 31 + speedX;
+        hash = hash * 31 + speedY;
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
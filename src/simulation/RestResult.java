@@ -0,0 +1,84 @@
+package simulation;
+
+/**
+ * A RestResult describes where a Ball comes to rest. It contains the resting
+ * position, the number of times the Ball has hit a wall on its way and the
+ * time it took until the Ball got inactive.
+ * A RestResult is not changeable after it has been initialized.
+ *
+ * @see RestQueryCache
+ */
+public class RestResult {
+
+    /**
+     * The X-position of the resting Ball.
+     */
+    private final double restX;
+
+    /**
+     * The Y-position of the resting Ball.
+     */
+    private final double restY;
+
+    /**
+     * The number of wall-hits until the Ball got inactive.
+     */
+    private final long wallHits;
+
+    /**
+     * The milliseconds until the Ball got inactive.
+     */
+    private final long restTime;
+
+    /**
+     * Creates a new RestResult.
+     *
+     * @param restX    the X-position of the resting Ball
+     * @param restY    the Y-position of the resting Ball
+     * @param wallHits the number of wall-hits until the Ball got inactive
+     * @param restTime the milliseconds until the Ball got inactive
+     */
+    public RestResult(double restX, double restY, long wallHits,
+                      long restTime) {
+        this.restX = restX;
+        this.restY = restY;
+        this.wallHits = wallHits;
+        this.restTime = restTime;
+    }
+
+    /**
+     * Returns the X-position of the resting Ball.
+     *
+     * @return the X-position of the resting Ball
+     */
+    public double getRestX() {
+        return restX;
+    }
+
+    /**
+     * Returns the Y-position of the resting Ball.
+     *
+     * @return the Y-position of the resting Ball
+     */
+    public double getRestY() {
+        return restY;
+    }
+
+    /**
+     * Returns the number of wall-hits until the Ball got inactive.
+     *
+     * @return the number of wall-hits
+     */
+    public long getWallHits() {
+        return wallHits;
+    }
+
+    /**
+     * Returns the milliseconds until the Ball got inactive.
+     *
+     * @return the time until the Ball got inactive
+     */
+    public long getRestTime() {
+        return restTime;
+    }
+}
@@ -1,7 +1,5 @@
 package simulation;
 
-import gui.BallStateObserver;
-
 /**
  * A Simulation provides Methods for returning values of a BallInBox-Simulation.
  * In addition the movement-calculations for a Simulation can be started.
@@ -31,11 +29,27 @@ public interface Simulation {
      */
     int getBallRadius();
 
+    /**
+     * Returns the StateRingBuffer, which contains the latest Ball-states.
+     * Readers should consume the Ball-state from it instead of polling the
+     * Ball.
+     *
+     * @return the StateRingBuffer of the Simulation
+     * @see StateRingBuffer
+     */
+    StateRingBuffer getStateBuffer();
+
     /**
      * Starts the movement calculations for the Balls movement.
      */
     void startMovement();
 
+    /**
+     * Stops the movement calculations for the Balls movement. The state of
+     * the Ball is kept.
+     */
+    void stopMovement();
+
     /**
      * Registers a new Observer.
      *
@@ -0,0 +1,128 @@
+package simulation;
+
+/**
+ * A SimulationRandom is a small seedable pseudo-random generator, whose
+ * complete state is a single long value. Because of this, the state can be
+ * written into a SimulatorCheckpoint and restored later, so a restored
+ * simulation continues with exactly the same random numbers.
+ * The numbers are generated with the SplitMix64 algorithm.
+ *
+ * @see SimulatorCheckpoint
+ */
+public class SimulationRandom {
+
+    /**
+     * The increment of the state for every generated number.
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The current state of the generator.
+     */
+    private long state;
+
+    /**
+     * Creates a new SimulationRandom with the given state. Two
+     * SimulationRandoms with the same state generate the same numbers.
+     *
+     * @param state the initial state
+     */
+    public SimulationRandom(long state) {
+        this.state = state;
+    }
+
+    /**
+     * Creates a new SimulationRandom for a stream of a seed. Different
+     * streams of the same seed generate independent numbers, so every
+     * consumer of random numbers can get its own stream.
+     *
+     * @param seed   the seed of the simulation
+     * @param stream the number of the stream
+     * @return the SimulationRandom for the stream
+     */
+    public static SimulationRandom forStream(long seed, int stream) {
+        return new SimulationRandom(mix(seed + (stream + 1) * GOLDEN_GAMMA));
+    }
+
+    /**
+     * Returns a seed, which differs for every call.
+     *
+     * @return a new seed
+     */
+    public static long newSeed() {
+        return mix(System.nanoTime() ^ Thread.currentThread().getId());
+    }
+
+    /**
+     * Scrambles the bits of the given value.
+     *
+     * @param value the value to scramble
+     * @return the scrambled value
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Returns the next random long value.
+     *
+     * @return a random long value
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Returns a random Integer-value between 0 (inclusive) and the given
+     * bound (exclusive).
+     *
+     * @param bound the upper bound, which has to be positive
+     * @return a random value smaller than the bound
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException(
+                    "The bound has to be positive: " + bound);
+        }
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * Returns a random double-value between 0 (inclusive) and 1 (exclusive).
+     *
+     * @return a random double-value
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Returns a random boolean-value.
+     *
+     * @return a random boolean-value
+     */
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Returns the current state of the generator.
+     *
+     * @return the state
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Sets the state of the generator.
+     *
+     * @param state the new state
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+}
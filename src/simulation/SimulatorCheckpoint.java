@@ -0,0 +1,345 @@
+package simulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * A SimulatorCheckpoint contains the full state of a MovementSimulator:
+ * the size of the Box, the position, speed and radius of the Ball, the
+ * refresh-time, the state of the random generator and the time that is left
+ * until a resting Ball gets a new speed. A MovementSimulator that is restored
+ * from a SimulatorCheckpoint continues exactly like the original one. A
+ * SimulatorCheckpoint only accepts a consistent state: the Ball has to be
+ * inside the Box, its speed-components must not be greater than 1 and the
+ * refresh-time has to be positive.
+ * <p>
+ * A SimulatorCheckpoint can be written as a compact binary record. Two
+ * SimulatorCheckpoints with the same state are equal, so a
+ * SimulatorCheckpoint can also be used as the key for cached results.
+ *
+ * @see MovementSimulator#checkpoint()
+ * @see MovementSimulator#restore(SimulatorCheckpoint)
+ */
+public final class SimulatorCheckpoint {
+
+    /**
+     * The first bytes of every binary SimulatorCheckpoint.
+     */
+    private static final int MAGIC = 0x42494243;
+
+    /**
+     * The version of the binary format.
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * The length of the Box.
+     */
+    private final int boxLength;
+
+    /**
+     * The height of the Box.
+     */
+    private final int boxHeight;
+
+    /**
+     * The radius of the Ball.
+     */
+    private final int ballRadius;
+
+    /**
+     * The X-position of the Ball.
+     */
+    private final double ballX;
+
+    /**
+     * The Y-position of the Ball.
+     */
+    private final double ballY;
+
+    /**
+     * The speed of the Ball in X-direction.
+     */
+    private final double speedX;
+
+    /**
+     * The speed of the Ball in Y-direction.
+     */
+    private final double speedY;
+
+    /**
+     * The refresh-time of the MovementSimulator.
+     */
+    private final int refreshTime;
+
+    /**
+     * The state of the random generator.
+     */
+    private final long randomState;
+
+    /**
+     * The milliseconds until a resting Ball gets a new speed. It is 0 if the
+     * Ball is moving.
+     */
+    private final long pendingRelaunchTime;
+
+    /**
+     * Creates a new SimulatorCheckpoint with the given state.
+     *
+     * @param boxLength           the length of the Box
+     * @param boxHeight           the height of the Box
+     * @param ballRadius          the radius of the Ball
+     * @param ballX               the X-position of the Ball
+     * @param ballY               the Y-position of the Ball
+     * @param speedX              the speed of the Ball in X-direction
+     * @param speedY              the speed of the Ball in Y-direction
+     * @param refreshTime         the refresh-time of the MovementSimulator
+     * @param randomState         the state of the random generator
+     * @param pendingRelaunchTime the milliseconds until a resting Ball gets a
+     *                            new speed
+     * @throws IllegalArgumentException if the state is not consistent
+     */
+    public SimulatorCheckpoint(int boxLength, int boxHeight, int ballRadius,
+                               double ballX, double ballY, double speedX,
+                               double speedY, int refreshTime,
+                               long randomState, long pendingRelaunchTime) {
+        if (ballRadius < 1 || boxLength < 2 * ballRadius
+                || boxHeight < 2 * ballRadius) {
+            throw new IllegalArgumentException("The Ball with the radius "
+                    + ballRadius + " does not fit into the Box of "
+                    + boxLength + " x " + boxHeight);
+        }
+        if (!(ballX >= ballRadius && ballX <= boxLength - ballRadius
+                && ballY >= ballRadius && ballY <= boxHeight - ballRadius)) {
+            throw new IllegalArgumentException(
+                    "The Ball is not inside the Box: " + ballX + ", "
+                            + ballY);
+        }
+        if (!(Math.abs(speedX) <= 1 && Math.abs(speedY) <= 1)) {
+            throw new IllegalArgumentException(
+                    "The speed is greater than 1: " + speedX + ", "
+                            + speedY);
+        }
+        if (refreshTime < 1 || pendingRelaunchTime < 0) {
+            throw new IllegalArgumentException("The refresh-time "
+                    + refreshTime + " or the pending relaunch-time "
+                    + pendingRelaunchTime + " is invalid");
+        }
+        this.boxLength = boxLength;
+        this.boxHeight = boxHeight;
+        this.ballRadius = ballRadius;
+        this.ballX = ballX;
+        this.ballY = ballY;
+        this.speedX = speedX;
+        this.speedY = speedY;
+        this.refreshTime = refreshTime;
+        this.randomState = randomState;
+        this.pendingRelaunchTime = pendingRelaunchTime;
+    }
+
+    /**
+     * Writes this SimulatorCheckpoint as a binary record.
+     *
+     * @param out the output to write to
+     * @throws IOException if the output can not be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(boxLength);
+        out.writeInt(boxHeight);
+        out.writeInt(ballRadius);
+        out.writeDouble(ballX);
+        out.writeDouble(ballY);
+        out.writeDouble(speedX);
+        out.writeDouble(speedY);
+        out.writeInt(refreshTime);
+        out.writeLong(randomState);
+        out.writeLong(pendingRelaunchTime);
+    }
+
+    /**
+     * Reads a SimulatorCheckpoint from a binary record.
+     *
+     * @param in the input to read from
+     * @return the read SimulatorCheckpoint
+     * @throws IOException if the input can not be read or does not contain
+     *                     a consistent SimulatorCheckpoint
+     */
+    public static SimulatorCheckpoint readFrom(DataInput in)
+            throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("The input is not a checkpoint");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported checkpoint version: "
+                    + version);
+        }
+        try {
+            return new SimulatorCheckpoint(in.readInt(), in.readInt(),
+                    in.readInt(), in.readDouble(), in.readDouble(),
+                    in.readDouble(), in.readDouble(), in.readInt(),
+                    in.readLong(), in.readLong());
+        } catch (IllegalArgumentException invalid) {
+            throw new IOException("The checkpoint is invalid", invalid);
+        }
+    }
+
+    /**
+     * Returns this SimulatorCheckpoint as a binary record.
+     *
+     * @return the bytes of the binary record
+     */
+    public byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try {
+            writeTo(new DataOutputStream(bytes));
+        } catch (IOException exception) {
+            throw new IllegalStateException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a SimulatorCheckpoint from the bytes of a binary record.
+     *
+     * @param bytes the bytes of the binary record
+     * @return the read SimulatorCheckpoint
+     * @throws IOException if the bytes do not contain a consistent
+     *                     SimulatorCheckpoint
+     */
+    public static SimulatorCheckpoint fromByteArray(byte[] bytes)
+            throws IOException {
+        return readFrom(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Returns the length of the Box.
+     *
+     * @return the length of the Box
+     */
+    public int getBoxLength() {
+        return boxLength;
+    }
+
+    /**
+     * Returns the height of the Box.
+     *
+     * @return the height of the Box
+     */
+    public int getBoxHeight() {
+        return boxHeight;
+    }
+
+    /**
+     * Returns the radius of the Ball.
+     *
+     * @return the radius of the Ball
+     */
+    public int getBallRadius() {
+        return ballRadius;
+    }
+
+    /**
+     * Returns the X-position of the Ball.
+     *
+     * @return the X-position of the Ball
+     */
+    public double getBallX() {
+        return ballX;
+    }
+
+    /**
+     * Returns the Y-position of the Ball.
+     *
+     * @return the Y-position of the Ball
+     */
+    public double getBallY() {
+        return ballY;
+    }
+
+    /**
+     * Returns the speed of the Ball in X-direction.
+     *
+     * @return the speed in X-direction
+     */
+    public double getSpeedX() {
+        return speedX;
+    }
+
+    /**
+     * Returns the speed of the Ball in Y-direction.
+     *
+     * @return the speed in Y-direction
+     */
+    public double getSpeedY() {
+        return speedY;
+    }
+
+    /**
+     * Returns the refresh-time of the MovementSimulator.
+     *
+     * @return the refresh-time
+     */
+    public int getRefreshTime() {
+        return refreshTime;
+    }
+
+    /**
+     * Returns the state of the random generator.
+     *
+     * @return the state of the random generator
+     */
+    public long getRandomState() {
+        return randomState;
+    }
+
+    /**
+     * Returns the milliseconds until a resting Ball gets a new speed.
+     *
+     * @return the pending relaunch-time, or 0 if the Ball is moving
+     */
+    public long getPendingRelaunchTime() {
+        return pendingRelaunchTime;
+    }
+
+    /**
+     * Proofs if the given Object is a SimulatorCheckpoint with the same state.
+     *
+     * @param other the Object to compare with
+     * @return if the Object is an equal SimulatorCheckpoint
+     */
+    public boolean equals(Object other) {
+        if (!(other instanceof SimulatorCheckpoint)) {
+            return false;
+        }
+        SimulatorCheckpoint checkpoint = (SimulatorCheckpoint) other;
+        return boxLength == checkpoint.boxLength
+                && boxHeight == checkpoint.boxHeight
+                && ballRadius == checkpoint.ballRadius
+                && Double.compare(ballX, checkpoint.ballX) == 0
+                && Double.compare(ballY, checkpoint.ballY) == 0
+                && Double.compare(speedX, checkpoint.speedX) == 0
+                && Double.compare(speedY, checkpoint.speedY) == 0
+                && refreshTime == checkpoint.refreshTime
+                && randomState == checkpoint.randomState
+                && pendingRelaunchTime == checkpoint.pendingRelaunchTime;
+    }
+
+    /**
+     * Returns a hash-code, which depends on the whole state.
+     *
+     * @return the hash-code
+     */
+    public int hashCode() {
+        return Objects.hash(boxLength, boxHeight, ballRadius, ballX, ballY,
+                speedX, speedY, refreshTime, randomState, pendingRelaunchTime);
+    }
+}
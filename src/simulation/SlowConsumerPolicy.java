@@ -0,0 +1,30 @@
+package simulation;
+
+/**
+ * A SlowConsumerPolicy decides what happens when a StateConsumer can not keep
+ * up with the frames that are published into a StateRingBuffer.
+ *
+ * @see StateRingBuffer
+ * @see StateConsumer
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * The producer overwrites frames the consumer has not read yet. The
+     * consumer skips the lost frames and continues with the oldest frame
+     * that is still available.
+     */
+    DROP,
+
+    /**
+     * The producer waits until the consumer has read enough frames to free
+     * a slot in the StateRingBuffer.
+     */
+    BLOCK,
+
+    /**
+     * The consumer is only interested in the latest frame. All frames
+     * between its last read and the latest published frame are skipped.
+     */
+    CONFLATE
+}
@@ -0,0 +1,197 @@
+package simulation;
+
+import java.util.Arrays;
+
+/**
+ * A SpatialGrid is a uniform grid over the area of a Box, which finds the
+ * Balls inside a rectangle without looking at every Ball. The grid is
+ * rebuilt from the current positions with a counting sort into reused
+ * arrays, so rebuilding and querying do not allocate anything as long as the
+ * number of Balls does not grow. A grid never has more than 1,048,576 cells,
+ * so the cells of a very large area are larger than requested.
+ *
+ * @see Box
+ */
+public class SpatialGrid {
+
+    /**
+     * The maximal number of cells of a grid.
+     */
+    private static final long MAX_CELLS = 1 << 20;
+
+    /**
+     * The length of a cell.
+     */
+    private final double cellSize;
+
+    /**
+     * The number of columns.
+     */
+    private final int columns;
+
+    /**
+     * The number of rows.
+     */
+    private final int rows;
+
+    /**
+     * The index of the first Ball of every cell in cellBalls. The Balls of
+     * cell i are stored from cellStart[i] to cellStart[i + 1].
+     */
+    private final int[] cellStart;
+
+    /**
+     * The indices of the Balls, sorted by their cells.
+     */
+    private int[] cellBalls;
+
+    /**
+     * The cell of every Ball of the last rebuild.
+     */
+    private int[] ballCells;
+
+    /**
+     * Creates a new empty SpatialGrid over an area with the given size. If
+     * the area would need more than the maximal number of cells, the cells
+     * are as small as possible within that limit.
+     *
+     * @param length   the length of the area
+     * @param height   the height of the area
+     * @param cellSize the minimal length of a cell
+     */
+    public SpatialGrid(double length, double height, double cellSize) {
+        if (!(cellSize > 0) || !(length > 0) || !(height > 0)
+                || Double.isInfinite(cellSize) || Double.isInfinite(length)
+                || Double.isInfinite(height)) {
+            throw new IllegalArgumentException(
+                    "The sizes of the grid have to be positive and finite");
+        }
+        this.cellSize = fitCellSize(length, height, cellSize);
+        columns = (int) countCells(length, this.cellSize);
+        rows = (int) countCells(height, this.cellSize);
+        cellStart = new int[columns * rows + 1];
+        cellBalls = new int[0];
+        ballCells = new int[0];
+    }
+
+    /**
+     * Returns the number of cells covering a side of the area.
+     *
+     * @param side     the length of the side
+     * @param cellSize the length of a cell
+     * @return the number of cells, at least one
+     */
+    private static long countCells(double side, double cellSize) {
+        return Math.max(1, (long) Math.ceil(side / cellSize));
+    }
+
+    /**
+     * Returns the smallest cell-size of at least the given one, whose grid
+     * does not have more than the maximal number of cells.
+     *
+     * @param length   the length of the area
+     * @param height   the height of the area
+     * @param cellSize the minimal length of a cell
+     * @return the cell-size
+     */
+    private static double fitCellSize(double length, double height,
+                                      double cellSize) {
+        double fitted = Math.max(cellSize,
+                Math.sqrt(length * height / MAX_CELLS));
+        while (countCells(length, fitted) * countCells(height, fitted)
+                > MAX_CELLS) {
+            fitted *= 1.01;
+        }
+        return fitted;
+    }
+
+    /**
+     * Sorts the given Balls into the cells. Balls outside the area are put
+     * into the nearest cell.
+     *
+     * @param ballsX the X-positions of the Balls
+     * @param ballsY the Y-positions of the Balls
+     * @param count  the number of Balls
+     */
+    public void rebuild(double[] ballsX, double[] ballsY, int count) {
+        if (cellBalls.length < count) {
+            cellBalls = new int[count];
+            ballCells = new int[count];
+        }
+        Arrays.fill(cellStart, 0);
+        for (int i = 0; i < count; i++) {
+            int cell = row(ballsY[i]) * columns + column(ballsX[i]);
+            ballCells[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int cell = 0; cell < columns * rows; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        for (int i = 0; i < count; i++) {
+            int cell = ballCells[i];
+            cellBalls[cellStart[cell]++] = i;
+        }
+        for (int cell = columns * rows; cell > 0; cell--) {
+            cellStart[cell] = cellStart[cell - 1];
+        }
+        cellStart[0] = 0;
+    }
+
+    /**
+     * Writes the indices of all Balls inside the given rectangle into the
+     * given array. Only the cells that overlap the rectangle are visited.
+     *
+     * @param minX   the left edge of the rectangle
+     * @param minY   the top edge of the rectangle
+     * @param maxX   the right edge of the rectangle
+     * @param maxY   the bottom edge of the rectangle
+     * @param ballsX the X-positions of the Balls of the last rebuild
+     * @param ballsY the Y-positions of the Balls of the last rebuild
+     * @param result the array for the indices, which has to be large enough
+     *               for all Balls
+     * @return the number of found Balls
+     */
+    public int query(double minX, double minY, double maxX, double maxY,
+                     double[] ballsX, double[] ballsY, int[] result) {
+        int firstColumn = column(minX);
+        int lastColumn = column(maxX);
+        int firstRow = row(minY);
+        int lastRow = row(maxY);
+        int found = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int ball = cellBalls[i];
+                    if (ballsX[ball] >= minX && ballsX[ball] <= maxX
+                            && ballsY[ball] >= minY && ballsY[ball] <= maxY) {
+                        result[found++] = ball;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the column of the given X-coordinate.
+     *
+     * @param x the X-coordinate
+     * @return the column, clamped to the grid
+     */
+    private int column(double x) {
+        return Math.min(Math.max((int) Math.floor(x / cellSize), 0),
+                columns - 1);
+    }
+
+    /**
+     * Returns the row of the given Y-coordinate.
+     *
+     * @param y the Y-coordinate
+     * @return the row, clamped to the grid
+     */
+    private int row(double y) {
+        return Math.min(Math.max((int) Math.floor(y / cellSize), 0),
+                rows - 1);
+    }
+}
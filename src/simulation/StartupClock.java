@@ -0,0 +1,29 @@
+package simulation;
+
+/**
+ * The StartupClock measures the milliseconds since the start of the Java
+ * virtual machine, so the entry points can report how long it took until
+ * the first tick was calculated or the first frame was shown. It only uses
+ * the ProcessHandle of java.base, so measuring does not load any further
+ * modules.
+ */
+public final class StartupClock {
+
+    /**
+     * Not instantiable.
+     */
+    private StartupClock() {
+    }
+
+    /**
+     * Returns the milliseconds since the start of the Java virtual machine.
+     *
+     * @return the milliseconds since the start, or -1 if the operating system
+     * does not report the start of the process
+     */
+    public static long millisSinceStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> System.currentTimeMillis() - start.toEpochMilli())
+                .orElse(-1L);
+    }
+}
@@ -0,0 +1,135 @@
+package simulation;
+
+/**
+ * A StateConsumer reads frames from a StateRingBuffer. Every StateConsumer
+ * tracks its own sequence-number and must only be used by a single Thread.
+ * What happens if the StateConsumer can not keep up with the producer
+ * depends on its SlowConsumerPolicy.
+ *
+ * @see StateRingBuffer
+ * @see SlowConsumerPolicy
+ */
+public class StateConsumer {
+
+    /**
+     * The StateRingBuffer this StateConsumer reads from.
+     */
+    private final StateRingBuffer buffer;
+
+    /**
+     * The policy for the case this StateConsumer is too slow.
+     */
+    private final SlowConsumerPolicy policy;
+
+    /**
+     * The sequence-number of the next frame to read. Volatile, because the
+     * producer reads it when it has to wait for this StateConsumer.
+     */
+    private volatile long sequence;
+
+    /**
+     * The number of frames this StateConsumer has missed.
+     */
+    private long droppedFrames;
+
+    /**
+     * Creates a new StateConsumer. Use
+     * {@link StateRingBuffer#createConsumer(SlowConsumerPolicy)} instead.
+     *
+     * @param buffer   the StateRingBuffer to read from
+     * @param policy   the policy for the case the consumer is too slow
+     * @param sequence the sequence-number of the first frame to read
+     */
+    StateConsumer(StateRingBuffer buffer, SlowConsumerPolicy policy,
+                  long sequence) {
+        this.buffer = buffer;
+        this.policy = policy;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Hands all frames, which have been published since the last read, over
+     * to the handler, but not more than the given number of frames.
+     * A conflating StateConsumer only hands over the latest frame.
+     *
+     * @param handler   the handler for the frames
+     * @param maxFrames the maximal number of frames to hand over
+     * @return the number of frames that have been handed over
+     */
+    public int drain(StateFrameHandler handler, int maxFrames) {
+        long available = buffer.getCursor();
+        long next = sequence;
+        if (policy == SlowConsumerPolicy.CONFLATE && available > next) {
+            droppedFrames += available - next;
+            next = available;
+        }
+
+        int count = 0;
+        while (next <= available && count < maxFrames) {
+            long oldest = buffer.getCursor() - buffer.getCapacity() + 1;
+            if (next < oldest) {
+                droppedFrames += oldest - next;
+                next = oldest;
+                continue;
+            }
+            if (buffer.read(next, handler)) {
+                next++;
+                count++;
+            }
+        }
+        sequence = next;
+        return count;
+    }
+
+    /**
+     * Copies the latest published frame into the given StateFrame,
+     * regardless of the policy of this StateConsumer. All older frames are
+     * skipped.
+     *
+     * @param frame the StateFrame to fill
+     * @return if a frame has been copied
+     */
+    public boolean readLatest(StateFrame frame) {
+        long latest = buffer.getCursor();
+        while (latest >= 0) {
+            if (buffer.read(latest, frame)) {
+                if (latest > sequence) {
+                    droppedFrames += latest - sequence;
+                }
+                sequence = latest + 1;
+                return true;
+            }
+            latest = buffer.getCursor();
+        }
+        return false;
+    }
+
+    /**
+     * Returns the sequence-number of the next frame this StateConsumer
+     * will read.
+     *
+     * @return the next sequence-number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of frames this StateConsumer has skipped, because
+     * it was too slow or conflating.
+     *
+     * @return the number of skipped frames
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Returns the policy of this StateConsumer.
+     *
+     * @return the SlowConsumerPolicy
+     */
+    public SlowConsumerPolicy getPolicy() {
+        return policy;
+    }
+}
@@ -0,0 +1,120 @@
+package simulation;
+
+/**
+ * A StateFrame is a reusable copy of a single frame of the Ball-state.
+ * A StateFrame is meant to be allocated once by a reader and to be refilled
+ * by a StateConsumer, whenever the reader wants to see the latest state.
+ *
+ * @see StateConsumer#readLatest(StateFrame)
+ */
+public class StateFrame implements StateFrameHandler {
+
+    /**
+     * The sequence-number of the copied frame. It is -1 until the first frame
+     * has been copied.
+     */
+    private long sequence = -1;
+
+    /**
+     * The X-position of the Ball.
+     */
+    private double x;
+
+    /**
+     * The Y-position of the Ball.
+     */
+    private double y;
+
+    /**
+     * The speed of the Ball in X-direction.
+     */
+    private double speedX;
+
+    /**
+     * The speed of the Ball in Y-direction.
+     */
+    private double speedY;
+
+    /**
+     * If the Ball was inactive.
+     */
+    private boolean inactive;
+
+    /**
+     * Copies the given frame into this StateFrame.
+     *
+     * @see StateFrameHandler
+     */
+    public void onFrame(long sequence, double x, double y, double speedX,
+                        double speedY, boolean inactive) {
+        this.sequence = sequence;
+        this.x = x;
+        this.y = y;
+        this.speedX = speedX;
+        this.speedY = speedY;
+        this.inactive = inactive;
+    }
+
+    /**
+     * Returns if a frame has already been copied into this StateFrame.
+     *
+     * @return if this StateFrame contains a frame
+     */
+    public boolean isFilled() {
+        return sequence >= 0;
+    }
+
+    /**
+     * Returns the sequence-number of the copied frame.
+     *
+     * @return the sequence-number, or -1 if no frame has been copied
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the X-position of the Ball.
+     *
+     * @return the X-position of the Ball
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Returns the Y-position of the Ball.
+     *
+     * @return the Y-position of the Ball
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Returns the speed of the Ball in X-direction.
+     *
+     * @return the speed in X-direction
+     */
+    public double getSpeedX() {
+        return speedX;
+    }
+
+    /**
+     * Returns the speed of the Ball in Y-direction.
+     *
+     * @return the speed in Y-direction
+     */
+    public double getSpeedY() {
+        return speedY;
+    }
+
+    /**
+     * Returns if the Ball was inactive.
+     *
+     * @return if the Ball was inactive
+     */
+    public boolean isInactive() {
+        return inactive;
+    }
+}
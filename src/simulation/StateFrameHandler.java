@@ -0,0 +1,24 @@
+package simulation;
+
+/**
+ * A StateFrameHandler receives the frames a StateConsumer drains from a
+ * StateRingBuffer. The values of a frame are handed over as primitives, so
+ * no Object has to be created for a frame.
+ *
+ * @see StateConsumer
+ */
+public interface StateFrameHandler {
+
+    /**
+     * Handles a single frame of the Ball-state.
+     *
+     * @param sequence the sequence-number of the frame
+     * @param x        the X-position of the Ball
+     * @param y        the Y-position of the Ball
+     * @param speedX   the speed of the Ball in X-direction
+     * @param speedY   the speed of the Ball in Y-direction
+     * @param inactive if the Ball is inactive
+     */
+    void onFrame(long sequence, double x, double y, double speedX,
+                 double speedY, boolean inactive);
+}
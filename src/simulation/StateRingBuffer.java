@@ -0,0 +1,222 @@
+package simulation;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A StateRingBuffer is a preallocated ring of Ball-state frames with a single
+ * producer and any number of consumers. The producer is the physics-Thread of
+ * a MovementSimulator, which publishes one frame per calculation. Every
+ * consumer tracks its own sequence-number, so readers never have to lock the
+ * Ball while the physics-Thread is writing to it.
+ * <p>
+ * Every slot carries the sequence-number of the frame it holds. A slot is
+ * marked as invalid while the producer rewrites it, so a consumer can detect
+ * that a frame has been overwritten during its read.
+ *
+ * @see StateConsumer
+ * @see SlowConsumerPolicy
+ */
+public class StateRingBuffer {
+
+    /**
+     * The number of frames the ring can hold. Always a power of two.
+     */
+    private final int capacity;
+
+    /**
+     * The mask, which maps a sequence-number to its slot.
+     */
+    private final int mask;
+
+    /**
+     * The sequence-number of the frame in every slot. A slot with the
+     * sequence-number -1 is currently rewritten.
+     */
+    private final AtomicLongArray slotSequences;
+
+    /**
+     * The X-positions of the frames.
+     */
+    private final double[] positionsX;
+
+    /**
+     * The Y-positions of the frames.
+     */
+    private final double[] positionsY;
+
+    /**
+     * The speeds in X-direction of the frames.
+     */
+    private final double[] speedsX;
+
+    /**
+     * The speeds in Y-direction of the frames.
+     */
+    private final double[] speedsY;
+
+    /**
+     * The Ball-states of the frames.
+     */
+    private final boolean[] inactive;
+
+    /**
+     * The sequence-number of the last published frame. It is -1 until the
+     * first frame has been published.
+     */
+    private volatile long cursor = -1;
+
+    /**
+     * The consumers, the producer has to wait for.
+     */
+    private final CopyOnWriteArrayList<StateConsumer> blockingConsumers;
+
+    /**
+     * Creates a new StateRingBuffer, which can hold at least the given number
+     * of frames. The capacity is rounded up to the next power of two.
+     *
+     * @param minimumCapacity the minimal number of frames in the ring
+     */
+    public StateRingBuffer(int minimumCapacity) {
+        if (minimumCapacity < 1) {
+            throw new IllegalArgumentException(
+                    "The capacity has to be positive: " + minimumCapacity);
+        }
+        int size = Integer.highestOneBit(minimumCapacity);
+        if (size < minimumCapacity) {
+            size = size << 1;
+        }
+        capacity = size;
+        mask = size - 1;
+        slotSequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slotSequences.set(i, -1);
+        }
+        positionsX = new double[size];
+        positionsY = new double[size];
+        speedsX = new double[size];
+        speedsY = new double[size];
+        inactive = new boolean[size];
+        blockingConsumers = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Publishes a new frame. Must only be called by the single producer.
+     * If a consumer with the BLOCK-policy has not read enough frames yet,
+     * this method waits until there is a free slot or the calling Thread
+     * gets interrupted.
+     *
+     * @param x        the X-position of the Ball
+     * @param y        the Y-position of the Ball
+     * @param speedX   the speed of the Ball in X-direction
+     * @param speedY   the speed of the Ball in Y-direction
+     * @param inactive if the Ball is inactive
+     * @return the sequence-number of the published frame
+     */
+    public long publish(double x, double y, double speedX, double speedY,
+                        boolean inactive) {
+        long next = cursor + 1;
+        waitForBlockingConsumers(next);
+
+        int index = (int) next & mask;
+        slotSequences.set(index, -1);
+        VarHandle.storeStoreFence();
+        positionsX[index] = x;
+        positionsY[index] = y;
+        speedsX[index] = speedX;
+        speedsY[index] = speedY;
+        this.inactive[index] = inactive;
+        slotSequences.set(index, next);
+        cursor = next;
+        return next;
+    }
+
+    /**
+     * Waits until every consumer with the BLOCK-policy has read the frame,
+     * which will be overwritten by the given sequence-number.
+     *
+     * @param next the sequence-number of the next frame
+     */
+    private void waitForBlockingConsumers(long next) {
+        for (StateConsumer consumer : blockingConsumers) {
+            while (next - consumer.getSequence() >= capacity
+                    && blockingConsumers.contains(consumer)
+                    && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+    }
+
+    /**
+     * Hands the frame with the given sequence-number over to the handler.
+     * Does nothing if the frame is not available any longer or has been
+     * overwritten during the read.
+     *
+     * @param sequence the sequence-number of the frame
+     * @param handler  the handler for the frame
+     * @return if the frame has been handed over
+     */
+    boolean read(long sequence, StateFrameHandler handler) {
+        int index = (int) sequence & mask;
+        if (slotSequences.get(index) != sequence) {
+            return false;
+        }
+        double x = positionsX[index];
+        double y = positionsY[index];
+        double speedX = speedsX[index];
+        double speedY = speedsY[index];
+        boolean frameInactive = inactive[index];
+        VarHandle.loadLoadFence();
+        if (slotSequences.get(index) != sequence) {
+            return false;
+        }
+        handler.onFrame(sequence, x, y, speedX, speedY, frameInactive);
+        return true;
+    }
+
+    /**
+     * Creates a new consumer with the given policy. The consumer starts
+     * with the next frame that will be published.
+     *
+     * @param policy the policy for the case the consumer is too slow
+     * @return the new consumer
+     */
+    public StateConsumer createConsumer(SlowConsumerPolicy policy) {
+        StateConsumer consumer = new StateConsumer(this, policy,
+                cursor + 1);
+        if (policy == SlowConsumerPolicy.BLOCK) {
+            blockingConsumers.add(consumer);
+        }
+        return consumer;
+    }
+
+    /**
+     * Removes a consumer. The producer will not wait for the consumer any
+     * longer. Does nothing if the consumer was not blocking.
+     *
+     * @param consumer the consumer that is not interested in frames any longer
+     */
+    public void removeConsumer(StateConsumer consumer) {
+        blockingConsumers.remove(consumer);
+    }
+
+    /**
+     * Returns the sequence-number of the last published frame.
+     *
+     * @return the last sequence-number, or -1 if nothing has been published
+     */
+    public long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Returns the number of frames the ring can hold.
+     *
+     * @return the capacity of the ring
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
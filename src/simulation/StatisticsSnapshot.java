@@ -0,0 +1,214 @@
+package simulation;
+
+/**
+ * A StatisticsSnapshot is a consistent copy of the aggregates of a
+ * BoxStatistics. It is meant to be created once by a reader and to be
+ * refilled periodically.
+ *
+ * @see BoxStatistics#createSnapshot()
+ * @see BoxStatistics#snapshot(StatisticsSnapshot)
+ */
+public class StatisticsSnapshot {
+
+    /**
+     * The copied kinetic energies, used as a ring.
+     */
+    private final double[] energyHistory;
+
+    /**
+     * The number of kinetic energies that had been recorded.
+     */
+    private long energySamples;
+
+    /**
+     * The copied wall-hits per wall.
+     */
+    private final long[] wallHits;
+
+    /**
+     * The number of heatmap-columns.
+     */
+    private final int columns;
+
+    /**
+     * The number of heatmap-rows.
+     */
+    private final int rows;
+
+    /**
+     * The copied heatmap.
+     */
+    private final long[] heatmap;
+
+    /**
+     * The milliseconds covered by a bucket of the time-to-rest histogram.
+     */
+    private final long restBucketWidth;
+
+    /**
+     * The copied time-to-rest histogram.
+     */
+    private final long[] restHistogram;
+
+    /**
+     * Creates a new empty StatisticsSnapshot.
+     *
+     * @param energyHistorySize the number of kinetic energies
+     * @param columns           the number of heatmap-columns
+     * @param rows              the number of heatmap-rows
+     * @param restBucketWidth   the milliseconds covered by a bucket of the
+     *                          time-to-rest histogram
+     * @param restBucketCount   the number of buckets of the time-to-rest
+     *                          histogram
+     */
+    StatisticsSnapshot(int energyHistorySize, int columns, int rows,
+                       long restBucketWidth, int restBucketCount) {
+        energyHistory = new double[energyHistorySize];
+        wallHits = new long[Wall.values().length];
+        this.columns = columns;
+        this.rows = rows;
+        heatmap = new long[columns * rows];
+        this.restBucketWidth = restBucketWidth;
+        restHistogram = new long[restBucketCount];
+    }
+
+    /**
+     * Proofs if this StatisticsSnapshot has got the given sizes.
+     *
+     * @param energyHistorySize the number of kinetic energies
+     * @param heatmapSize       the number of heatmap-cells
+     * @param restBucketCount   the number of time-to-rest buckets
+     * @return if the sizes match
+     */
+    boolean fits(int energyHistorySize, int heatmapSize,
+                 int restBucketCount) {
+        return energyHistory.length == energyHistorySize
+                && heatmap.length == heatmapSize
+                && restHistogram.length == restBucketCount;
+    }
+
+    /**
+     * Copies the given aggregates into this StatisticsSnapshot.
+     *
+     * @param energyHistory the kinetic energies
+     * @param energySamples the number of recorded kinetic energies
+     * @param wallHits      the wall-hits per wall
+     * @param heatmap       the heatmap
+     * @param restHistogram the time-to-rest histogram
+     */
+    void copy(double[] energyHistory, long energySamples, long[] wallHits,
+              long[] heatmap, long[] restHistogram) {
+        System.arraycopy(energyHistory, 0, this.energyHistory, 0,
+                energyHistory.length);
+        this.energySamples = energySamples;
+        System.arraycopy(wallHits, 0, this.wallHits, 0, wallHits.length);
+        System.arraycopy(heatmap, 0, this.heatmap, 0, heatmap.length);
+        System.arraycopy(restHistogram, 0, this.restHistogram, 0,
+                restHistogram.length);
+    }
+
+    /**
+     * Returns the number of kinetic energies that are available.
+     *
+     * @return the number of available kinetic energies
+     */
+    public int getEnergySampleCount() {
+        return (int) Math.min(energySamples, energyHistory.length);
+    }
+
+    /**
+     * Returns one of the available kinetic energies. The index 0 is the
+     * oldest available one.
+     *
+     * @param index the index of the kinetic energy
+     * @return the kinetic energy
+     * @throws IndexOutOfBoundsException if the kinetic energy is not available
+     */
+    public double getEnergySample(int index) {
+        int count = getEnergySampleCount();
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Energy sample " + index);
+        }
+        long sample = energySamples - count + index;
+        return energyHistory[(int) (sample % energyHistory.length)];
+    }
+
+    /**
+     * Returns the latest kinetic energy.
+     *
+     * @return the latest kinetic energy, or 0 if none has been recorded
+     */
+    public double getKineticEnergy() {
+        int count = getEnergySampleCount();
+        return count == 0 ? 0 : getEnergySample(count - 1);
+    }
+
+    /**
+     * Returns the number of hits of the given wall.
+     *
+     * @param wall the wall
+     * @return the number of hits
+     */
+    public long getWallHits(Wall wall) {
+        return wallHits[wall.ordinal()];
+    }
+
+    /**
+     * Returns the number of heatmap-columns.
+     *
+     * @return the number of columns
+     */
+    public int getHeatmapColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the number of heatmap-rows.
+     *
+     * @return the number of rows
+     */
+    public int getHeatmapRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the milliseconds the Ball spent in a heatmap-cell.
+     *
+     * @param column the column of the cell
+     * @param row    the row of the cell
+     * @return the milliseconds spent in the cell
+     */
+    public long getHeatmapCell(int column, int row) {
+        return heatmap[row * columns + column];
+    }
+
+    /**
+     * Returns the number of buckets of the time-to-rest histogram.
+     *
+     * @return the number of buckets
+     */
+    public int getRestBucketCount() {
+        return restHistogram.length;
+    }
+
+    /**
+     * Returns the milliseconds covered by a bucket of the time-to-rest
+     * histogram.
+     *
+     * @return the width of a bucket
+     */
+    public long getRestBucketWidth() {
+        return restBucketWidth;
+    }
+
+    /**
+     * Returns the number of rests in a bucket of the time-to-rest histogram.
+     * The last bucket also contains all longer times.
+     *
+     * @param bucket the index of the bucket
+     * @return the number of rests
+     */
+    public long getRestCount(int bucket) {
+        return restHistogram[bucket];
+    }
+}
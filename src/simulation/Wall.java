@@ -0,0 +1,30 @@
+package simulation;
+
+/**
+ * A Wall is one of the four sides of a Box. The top-wall is the one with the
+ * Y-coordinate 0.
+ *
+ * @see Box
+ */
+public enum Wall {
+
+    /**
+     * The wall with the X-coordinate 0.
+     */
+    LEFT,
+
+    /**
+     * The wall with the X-coordinate of the length of the Box.
+     */
+    RIGHT,
+
+    /**
+     * The wall with the Y-coordinate 0.
+     */
+    TOP,
+
+    /**
+     * The wall with the Y-coordinate of the height of the Box.
+     */
+    BOTTOM
+}